@@ -0,0 +1,134 @@
+package com.example.foodmanager;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DBを使うベンチマーク・負荷テスト用に、アプリを起動してデータを用意する
+ * テスト用の設定（application-test.properties）で起動し、ベンチマークごとに別のインメモリDB（H2）を使う。
+ * 大量のデータはエンティティを通さず、SQLでまとめて投入する。
+ */
+public final class BenchmarkApplication {
+
+    // 投入する食品のIDの開始値（アプリが food_seq で採番するIDと重ならないようにする）
+    private static final long SEED_FOOD_ID_BASE = 1_000_000_000L;
+
+    private static final String PASSWORD = "password";
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * アプリを起動する（SQLの件数を数えられるよう Hibernate の統計を有効にする）
+     */
+    public static ConfigurableApplicationContext start(WebApplicationType type, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+            "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+            "--spring.jpa.properties.hibernate.generate_statistics=true",
+            // 本番設定の DEBUG/INFO のログが測定に入らないようにする
+            "--logging.level.root=WARN",
+            "--logging.level.com.example.foodmanager=WARN",
+            "--logging.level.org.springframework=WARN",
+            "--logging.level.org.springframework.boot=WARN",
+            "--logging.level.org.springframework.security=WARN",
+            "--logging.level.org.springframework.web.reactive=WARN",
+            "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=OFF",
+            "--server.port=0",
+            "--management.server.port=0"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(FoodManagerApplication.class)
+            .web(type)
+            .profiles("test")
+            .run(arguments.toArray(String[]::new));
+    }
+
+    public static Statistics statistics(ConfigurableApplicationContext context) {
+        return context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * 起動したアプリ（WebApplicationType.SERVLET）に、ユーザー userId としてログインしたクライアントを返す
+     */
+    public static HttpClient login(ConfigurableApplicationContext context, long userId) throws Exception {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        String email = jdbc.queryForObject("SELECT email FROM users WHERE id = ?", String.class, userId);
+        jdbc.update("UPDATE users SET password = ? WHERE id = ?",
+            context.getBean(PasswordEncoder.class).encode(PASSWORD), userId);
+
+        HttpClient client = HttpClient.newBuilder()
+            .cookieHandler(new CookieManager())
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+        String form = "email=" + URLEncoder.encode(email, StandardCharsets.UTF_8) + "&password=" + PASSWORD;
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri(context, "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || location.contains("error")) {
+            throw new IllegalStateException("ログインできませんでした: " + response.statusCode() + " " + location);
+        }
+        return client;
+    }
+
+    public static URI uri(ConfigurableApplicationContext context, String path) {
+        return URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + path);
+    }
+
+    /**
+     * ユーザーを count 人まとめて追加し、最初のユーザーのIDを返す（IDは連番になる）
+     * 次の通知日時は first から interval ずつずらし、通知時刻もそれに合わせる
+     */
+    public static long seedUsers(JdbcTemplate jdbc, int count, LocalDateTime first, int intervalMinutes) {
+        long before = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+        jdbc.update("""
+            INSERT INTO users (username, email, password, role, notification_days_before, notification_time,
+                               notification_digest, next_notify_at)
+            SELECT 'user' || X, 'bench-' || X || '-' || RANDOM_UUID() || '@example.com', 'password', 'ROLE_USER', 3,
+                   CAST(DATEADD('MINUTE', MOD(X - 1, 1440 / ?) * ?, CAST(? AS TIMESTAMP)) AS TIME),
+                   MOD(X, 2) = 0,
+                   DATEADD('MINUTE', MOD(X - 1, 1440 / ?) * ?, CAST(? AS TIMESTAMP))
+            FROM SYSTEM_RANGE(1, ?)
+            """, intervalMinutes, intervalMinutes, first, intervalMinutes, intervalMinutes, first, count);
+        return before + 1;
+    }
+
+    public static long seedUser(JdbcTemplate jdbc, LocalTime notificationTime) {
+        return seedUsers(jdbc, 1, LocalDateTime.now().toLocalDate().plusDays(1).atTime(notificationTime), 1440);
+    }
+
+    /**
+     * ユーザーID firstUserId から users 人に、1人 perUser 件ずつ食品を追加する
+     * 消費期限は今日から -10日〜+49日に散らす（期限切れ・期限間近・余裕ありが混ざる）
+     */
+    public static void seedFoods(JdbcTemplate jdbc, long firstUserId, int users, int perUser) {
+        long base = SEED_FOOD_ID_BASE + jdbc.queryForObject(
+            "SELECT COUNT(*) FROM foods WHERE id >= ?", Long.class, SEED_FOOD_ID_BASE);
+        jdbc.update("""
+            INSERT INTO foods (id, name, expiration_date, registered_at, user_id)
+            SELECT ? + X, '食品' || X, DATEADD('DAY', MOD(ORA_HASH(X), 60) - 10, CURRENT_DATE), CURRENT_TIMESTAMP,
+                   ? + MOD(X, ?)
+            FROM SYSTEM_RANGE(0, ? - 1)
+            """, base, firstUserId, users, (long) users * perUser);
+    }
+}
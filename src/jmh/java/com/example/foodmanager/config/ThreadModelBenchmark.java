@@ -0,0 +1,99 @@
+package com.example.foodmanager.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * リクエスト処理のスレッド（プラットフォームスレッド / 仮想スレッド）のベンチマーク
+ * 1リクエストを「DBや外部APIの応答を latencyMillis だけ待ち、少し計算する」処理とし、
+ * requests 件を同時に受け付けてすべて終わるまでの時間を測る。
+ *  platform: Tomcat の既定と同じ200本のスレッドプール（spring.threads.virtual.enabled=false）
+ *  virtual : 1リクエストごとに仮想スレッド（spring.threads.virtual.enabled=true）
+ * work=blocking-synchronized は待ちを synchronized の中で行う場合で、仮想スレッドがキャリアスレッドに
+ * 固定（ピン留め）されるとどうなるかを見る（VirtualThreadPinningMonitor が警告する状況）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class ThreadModelBenchmark {
+
+    // Tomcat の server.tomcat.threads.max の既定値
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"200", "2000"})
+    public int requests;
+
+    @Param({"blocking", "blocking-synchronized"})
+    public String work;
+
+    // 1リクエストで応答を待つ時間
+    @Param({"20"})
+    public int latencyMillis;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        executor = "virtual".equals(threads)
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void handleRequests(Blackhole blackhole) throws Exception {
+        boolean pinned = "blocking-synchronized".equals(work);
+        List<Future<Long>> results = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            results.add(executor.submit(() -> pinned ? handleSynchronized(new Object()) : handle()));
+        }
+        for (Future<Long> result : results) {
+            blackhole.consume(result.get());
+        }
+    }
+
+    private long handleSynchronized(Object lock) throws InterruptedException {
+        // リクエストごとに別のロックなので競合はなく、ピン留めの影響だけが出る
+        synchronized (lock) {
+            return handle();
+        }
+    }
+
+    private long handle() throws InterruptedException {
+        Thread.sleep(latencyMillis);
+        // 応答を画面用に組み立てる程度の計算
+        long hash = 0;
+        for (int i = 0; i < 1_000; i++) {
+            hash = hash * 31 + i;
+        }
+        return hash;
+    }
+}
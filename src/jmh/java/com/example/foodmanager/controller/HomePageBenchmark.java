@@ -0,0 +1,138 @@
+package com.example.foodmanager.controller;
+
+import com.example.foodmanager.BenchmarkApplication;
+import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.FoodRepository;
+import com.example.foodmanager.repository.UserRepository;
+import com.example.foodmanager.service.FoodService;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ホーム画面（GET /）の負荷テスト
+ * 起動したアプリにログインしたクライアントから、実際にHTTPでホーム画面を表示する。
+ * 食品を foods 件持つユーザーでホーム画面を表示し、1リクエストあたりの時間とSQLの件数を測る。
+ *  homePage        : 今のホーム画面（先頭ページの表示列 + 件数の集計）を描画まで含めて表示する
+ *  legacyQueries   : 以前のホーム画面が行っていた、全件の一覧・期限間近・期限切れの3回のエンティティ取得
+ *  dashboardQueries: 今のホーム画面のDBアクセス（先頭ページ + 集計）だけ
+ * SQLの件数は各イテレーションの終わりに「statements/op」として出力する。
+ * 複数のスレッドで同時に表示するには -t を指定する（例: -t 8）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HomePageBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int foods;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest homePageRequest;
+    private FoodRepository foodRepository;
+    private FoodService foodService;
+    private TransactionTemplate readOnly;
+    private Statistics statistics;
+    private User user;
+    private final AtomicLong operations = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        long userId = BenchmarkApplication.seedUser(jdbc, LocalTime.of(9, 0));
+        BenchmarkApplication.seedFoods(jdbc, userId, 1, foods);
+
+        user = context.getBean(UserRepository.class).findById(userId).orElseThrow();
+        client = BenchmarkApplication.login(context, userId);
+        homePageRequest = HttpRequest.newBuilder(BenchmarkApplication.uri(context, "/")).build();
+        foodRepository = context.getBean(FoodRepository.class);
+        foodService = context.getBean(FoodService.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        statistics = BenchmarkApplication.statistics(context);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatistics() {
+        statistics.clear();
+        operations.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportStatistics(BenchmarkParams params) {
+        long ops = Math.max(1, operations.get());
+        System.out.printf("%n  %s: statements/op = %.1f, entities loaded/op = %.1f%n",
+            params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1),
+            (double) statistics.getPrepareStatementCount() / ops,
+            (double) statistics.getEntityLoadCount() / ops);
+    }
+
+    @Benchmark
+    public int homePage() throws Exception {
+        operations.incrementAndGet();
+        HttpResponse<byte[]> response = client.send(homePageRequest, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("status " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    @Benchmark
+    public long legacyQueries() {
+        operations.incrementAndGet();
+        return readOnly.execute(status -> {
+            LocalDate today = LocalDate.now();
+            List<Food> all = foodRepository.findByUserOrderByExpirationDateAsc(user);
+            int warning = foodRepository.findByUserAndExpirationDateBetween(user, today, today.plusDays(3)).size();
+            int expired = foodRepository.findByUserAndExpirationDateBefore(user, today).size();
+            return (long) all.size() + warning + expired;
+        });
+    }
+
+    @Benchmark
+    public long dashboardQueries() {
+        operations.incrementAndGet();
+        return readOnly.execute(status -> {
+            LocalDate today = LocalDate.now();
+            int listed = foodService.findPage(user, null, null, FoodService.DEFAULT_PAGE_SIZE).getItems().size();
+            return listed + foodRepository.summarizeByUser(user, today, today.plusDays(3)).getTotal();
+        });
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.foodmanager.controller;
+
+import com.example.foodmanager.BenchmarkApplication;
+import com.example.foodmanager.service.GeminiCallLimiter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * レシピ生成（POST /recipe/generate）の負荷テスト
+ * 応答に latencyMillis かかる Gemini API の代わりのサーバーを立て、requests 件のレシピ生成を同時に送る。
+ * すべての応答が返るまでの時間を測り、各イテレーションの終わりに次の値を出力する。
+ *  - 成功（200）・混雑で断った（503）・その他の件数と、成功した分の応答時間
+ *  - 代わりのサーバーが同時に受けた呼び出しの最大数（gemini.limiter.max-concurrent を超えないこと）
+ *  - レシピ生成の応答を待っている間のホーム画面（GET /）の応答時間（生成に巻き込まれて遅くならないこと）
+ * 依頼ごとに食材の組み合わせを変え、レシピのキャッシュや同じ依頼のまとめが効かないようにしている。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class RecipeGenerationLoadBenchmark {
+
+    private static final int FOODS = 1000;
+    private static final int HOME_PAGE_SAMPLES = 5;
+
+    private static final String GEMINI_RESPONSE = """
+        {"candidates":[{"content":{"parts":[{"text":"料理名: 野菜炒め\\n材料:\\n- キャベツ\\n- 豚肉\\n作り方:\\n1. 切る\\n2. 炒める\\n調理時間: 15分\\n難易度: 簡単"}]}}],
+         "usageMetadata":{"promptTokenCount":50,"candidatesTokenCount":40,"totalTokenCount":90}}
+        """;
+
+    @Param({"10", "60", "200"})
+    public int requests;
+
+    @Param({"2000"})
+    public int latencyMillis;
+
+    private HttpServer gemini;
+    private final AtomicInteger geminiActive = new AtomicInteger();
+    private final AtomicInteger geminiMaxActive = new AtomicInteger();
+
+    private ConfigurableApplicationContext context;
+    private GeminiCallLimiter limiter;
+    private HttpClient client;
+    private long firstFoodId;
+    private int sequence;
+
+    private final List<Long> okMillis = new ArrayList<>();
+    private final List<Long> homePageMillis = new ArrayList<>();
+    private int busy;
+    private int failed;
+
+    @Setup
+    public void setUp() throws Exception {
+        gemini = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        gemini.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        gemini.createContext("/", this::answerSlowly);
+        gemini.start();
+        String geminiUrl = "http://localhost:" + gemini.getAddress().getPort();
+
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+            "--gemini.api.url=" + geminiUrl + "/generate",
+            "--gemini.api.stream-url=" + geminiUrl + "/stream",
+            // 混雑で断った分がキャッシュの読み込み失敗として1件ずつ記録されるのを抑える
+            "--logging.level.com.github.benmanes.caffeine=ERROR");
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        long userId = BenchmarkApplication.seedUser(jdbc, LocalTime.of(9, 0));
+        BenchmarkApplication.seedFoods(jdbc, userId, 1, FOODS);
+        firstFoodId = jdbc.queryForObject("SELECT MIN(id) FROM foods WHERE user_id = ?", Long.class, userId);
+        limiter = context.getBean(GeminiCallLimiter.class);
+        client = BenchmarkApplication.login(context, userId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        gemini.stop(0);
+    }
+
+    // 前回の呼び出しがすべて終わり、開始のトークンが貯まりきるまで待ってから始める
+    @Setup(Level.Invocation)
+    public void awaitIdle() throws InterruptedException {
+        while (limiter.getActiveCount() > 0 || limiter.getQueuedCount() > 0) {
+            Thread.sleep(50);
+        }
+        Thread.sleep(2_000);
+        geminiMaxActive.set(0);
+        okMillis.clear();
+        homePageMillis.clear();
+        busy = 0;
+        failed = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        List<Long> ok = okMillis.stream().sorted().toList();
+        List<Long> home = homePageMillis.stream().sorted().toList();
+        System.out.printf("%n  ok = %d (p50 %d ms, max %d ms), busy = %d, failed = %d, gemini max concurrent = %d,"
+                + " home page during load: p50 %d ms, max %d ms%n",
+            ok.size(), percentile(ok, 50), percentile(ok, 100), busy, failed, geminiMaxActive.get(),
+            percentile(home, 50), percentile(home, 100));
+    }
+
+    @Benchmark
+    public void generateRecipes() throws Exception {
+        List<CompletableFuture<Void>> responses = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            long started = System.nanoTime();
+            responses.add(client.sendAsync(generateRequest(sequence++), HttpResponse.BodyHandlers.discarding())
+                .thenAccept(response -> record(response.statusCode(), started)));
+        }
+        // 生成の応答を待っている間に、ホーム画面を順に表示する
+        HttpRequest homePage = HttpRequest.newBuilder(BenchmarkApplication.uri(context, "/")).build();
+        for (int i = 0; i < HOME_PAGE_SAMPLES; i++) {
+            long started = System.nanoTime();
+            HttpResponse<Void> response = client.send(homePage, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("ホーム画面: " + response.statusCode());
+            }
+            synchronized (this) {
+                homePageMillis.add(elapsedMillis(started));
+            }
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+    }
+
+    // 依頼ごとに違う2つの食材を選ぶ
+    private HttpRequest generateRequest(int n) {
+        long a = firstFoodId + n % FOODS;
+        long b = firstFoodId + (n % FOODS + 1 + n / FOODS) % FOODS;
+        return HttpRequest.newBuilder(BenchmarkApplication.uri(context, "/recipe/generate"))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString("selectedFoodIds=" + a + "&selectedFoodIds=" + b))
+            .build();
+    }
+
+    private synchronized void record(int status, long started) {
+        if (status == 200) {
+            okMillis.add(elapsedMillis(started));
+        } else if (status == 503) {
+            busy++;
+        } else {
+            failed++;
+        }
+    }
+
+    private void answerSlowly(HttpExchange exchange) throws IOException {
+        int active = geminiActive.incrementAndGet();
+        geminiMaxActive.accumulateAndGet(active, Math::max);
+        try {
+            exchange.getRequestBody().readAllBytes();
+            Thread.sleep(latencyMillis);
+            byte[] body = GEMINI_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            geminiActive.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static long elapsedMillis(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+
+    private static long percentile(List<Long> sorted, int percent) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get(Math.max(0, (int) Math.ceil(sorted.size() * percent / 100.0) - 1));
+    }
+}
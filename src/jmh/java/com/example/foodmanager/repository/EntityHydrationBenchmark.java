@@ -0,0 +1,112 @@
+package com.example.foodmanager.repository;
+
+import com.example.foodmanager.FoodManagerApplication;
+import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.FoodListItem;
+import com.example.foodmanager.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Food / User エンティティの読み込み（ハイドレーション）のベンチマーク
+ * インメモリのH2でアプリを起動し、一覧表示と同じクエリを読み取り専用トランザクションで実行する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EntityHydrationBenchmark {
+
+    // ユーザー1人あたりの食品の件数
+    @Param({"100", "1000"})
+    public int foodCount;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private FoodRepository foodRepository;
+    private TransactionTemplate readOnly;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(FoodManagerApplication.class)
+            .web(WebApplicationType.NONE)
+            // application.properties より優先させるため、コマンドライン引数として渡す
+            .run("--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--gemini.api.key=benchmark",
+                "--brevo.api.key=",
+                "--mail.sender=benchmark@example.com",
+                "--logging.level.root=WARN");
+        userRepository = context.getBean(UserRepository.class);
+        foodRepository = context.getBean(FoodRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        User newUser = new User();
+        newUser.setUsername("benchmark");
+        newUser.setEmail("benchmark@example.com");
+        newUser.setPassword("{noop}benchmark");
+        user = userRepository.save(newUser);
+
+        List<Food> foods = new ArrayList<>(foodCount);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < foodCount; i++) {
+            Food food = new Food();
+            food.setName("食品" + i);
+            food.setExpirationDate(today.plusDays(i % 30));
+            food.setUser(user);
+            foods.add(food);
+        }
+        foodRepository.saveAll(foods);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Food> foodEntities() {
+        return readOnly.execute(status -> foodRepository.findByUserOrderByExpirationDateAsc(user));
+    }
+
+    @Benchmark
+    public List<FoodListItem> foodListItems() {
+        return readOnly.execute(status ->
+            foodRepository.findListItemsByUserOrderByExpirationDateAscIdAsc(user, Limit.of(foodCount)));
+    }
+
+    @Benchmark
+    public User userByEmail() {
+        return readOnly.execute(status -> userRepository.findByEmail(user.getEmail()).orElseThrow());
+    }
+
+    @Benchmark
+    public User userById() {
+        return readOnly.execute(status -> userRepository.findById(user.getId()).orElseThrow());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.foodmanager.repository;
+
+import com.example.foodmanager.BenchmarkApplication;
+import com.example.foodmanager.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 食品・ユーザーのよく使うクエリと索引（V2・V8 のマイグレーション）のベンチマーク
+ * 食品 users × foodsPerUser 件（既定で100万件）をH2に投入し、次のクエリの1回あたりの時間を測る。
+ *  summary       : ホーム画面の件数の集計（FoodRepository.summarizeByUser）
+ *  listPage      : 一覧の途中のページ（FoodRepository.findListItemsAfter）
+ *  expiringSoon  : 期限が3日以内の食品（FoodRepository.findByUserAndExpirationDateBetween）
+ *  dueUsers      : 通知日時を迎えたユーザー（UserRepository.findDueForNotification）
+ *  usersByTime   : 通知時刻が一致するユーザー（UserRepository.findByNotificationTime）
+ * indexes=without は追加した索引を削除した状態（外部キーの user_id の索引だけが残る）で測る。
+ * 起動時にそれぞれのSQLの実行計画（EXPLAIN ANALYZE）を出力する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FoodQueryIndexBenchmark {
+
+    // 通知時刻を30分刻みの48枠に散らす
+    private static final int SLOT_MINUTES = 30;
+
+    @Param({"with", "without"})
+    public String indexes;
+
+    @Param({"1000"})
+    public int users;
+
+    @Param({"1000"})
+    public int foodsPerUser;
+
+    private ConfigurableApplicationContext context;
+    private FoodRepository foodRepository;
+    private UserRepository userRepository;
+    private TransactionTemplate readOnly;
+    private List<User> sampleUsers;
+    private LocalDateTime firstSlot;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        today = LocalDate.now();
+        firstSlot = today.plusDays(1).atStartOfDay();
+        long firstUserId = BenchmarkApplication.seedUsers(jdbc, users, firstSlot, SLOT_MINUTES);
+        BenchmarkApplication.seedFoods(jdbc, firstUserId, users, foodsPerUser);
+        if ("without".equals(indexes)) {
+            jdbc.execute("DROP INDEX idx_foods_user_expiration");
+            jdbc.execute("DROP INDEX idx_users_notification_time");
+            jdbc.execute("DROP INDEX idx_users_next_notify_at");
+        }
+        jdbc.execute("ANALYZE");
+
+        foodRepository = context.getBean(FoodRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        sampleUsers = userRepository.findAllById(List.of(firstUserId, firstUserId + users / 2, firstUserId + users - 1));
+
+        long userId = firstUserId + users / 2;
+        explain(jdbc, "summary", """
+            SELECT COUNT(*), SUM(CASE WHEN expiration_date BETWEEN ? AND ? THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN expiration_date < ? THEN 1 ELSE 0 END)
+            FROM foods WHERE user_id = ?
+            """, today, today.plusDays(3), today, userId);
+        explain(jdbc, "listPage", """
+            SELECT id, name, expiration_date FROM foods
+            WHERE user_id = ? AND (expiration_date > ? OR (expiration_date = ? AND id > ?))
+            ORDER BY expiration_date, id LIMIT 50
+            """, userId, today.plusDays(20), today.plusDays(20), 0L);
+        explain(jdbc, "expiringSoon", """
+            SELECT * FROM foods WHERE user_id = ? AND expiration_date BETWEEN ? AND ?
+            """, userId, today, today.plusDays(3));
+        explain(jdbc, "dueUsers", """
+            SELECT * FROM users WHERE next_notify_at <= ? AND MOD(id, 1) = 0
+            ORDER BY next_notify_at, id LIMIT 500
+            """, firstSlot.plusMinutes(SLOT_MINUTES));
+        explain(jdbc, "usersByTime", """
+            SELECT * FROM users WHERE notification_time = ?
+            """, firstSlot.plusMinutes(SLOT_MINUTES).toLocalTime());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long summary() {
+        return readOnly.execute(status ->
+            foodRepository.summarizeByUser(sampleUser(), today, today.plusDays(3)).getTotal());
+    }
+
+    @Benchmark
+    public int listPage() {
+        return readOnly.execute(status ->
+            foodRepository.findListItemsAfter(sampleUser(), today.plusDays(20), 0L, Limit.of(50)).size());
+    }
+
+    @Benchmark
+    public int expiringSoon() {
+        return readOnly.execute(status ->
+            foodRepository.findByUserAndExpirationDateBetween(sampleUser(), today, today.plusDays(3)).size());
+    }
+
+    @Benchmark
+    public int dueUsers() {
+        return readOnly.execute(status ->
+            userRepository.findDueForNotification(firstSlot.plusMinutes(SLOT_MINUTES), 1, 0, Limit.of(500)).size());
+    }
+
+    @Benchmark
+    public int usersByTime() {
+        return readOnly.execute(status ->
+            userRepository.findByNotificationTime(firstSlot.plusMinutes(SLOT_MINUTES).toLocalTime()).size());
+    }
+
+    private User sampleUser() {
+        return sampleUsers.get(ThreadLocalRandom.current().nextInt(sampleUsers.size()));
+    }
+
+    private static void explain(JdbcTemplate jdbc, String label, String sql, Object... args) {
+        String plan = jdbc.queryForObject("EXPLAIN ANALYZE " + sql, String.class, args);
+        System.out.printf("%n--- %s ---%n%s%n", label, plan);
+    }
+}
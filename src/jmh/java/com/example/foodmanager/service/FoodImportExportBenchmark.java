@@ -0,0 +1,156 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.BenchmarkApplication;
+import com.example.foodmanager.model.FoodImportResult;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.UserRepository;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 食品の一括登録・書き出し（FoodImportExportService）のベンチマーク
+ * rows 件の食品を format（csv / json）で1回登録する時間と、rows 件持つユーザーの食品を1回書き出す時間を測る。
+ * 登録した分は毎回削除する。SQLの件数（JDBCバッチは1件と数える）は各イテレーションの終わりに出力する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FoodImportExportBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"csv", "json"})
+    public String format;
+
+    private ConfigurableApplicationContext context;
+    private FoodImportExportService service;
+    private JdbcTemplate jdbc;
+    private Statistics statistics;
+    private User importUser;
+    private long exportUserId;
+    private byte[] payload;
+    private long lastResult;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE);
+        jdbc = context.getBean(JdbcTemplate.class);
+        long importUserId = BenchmarkApplication.seedUser(jdbc, LocalTime.of(9, 0));
+        exportUserId = BenchmarkApplication.seedUser(jdbc, LocalTime.of(9, 0));
+        BenchmarkApplication.seedFoods(jdbc, exportUserId, 1, rows);
+
+        service = context.getBean(FoodImportExportService.class);
+        importUser = context.getBean(UserRepository.class).findById(importUserId).orElseThrow();
+        statistics = BenchmarkApplication.statistics(context);
+        payload = "json".equals(format) ? json(rows) : csv(rows);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearImported() {
+        jdbc.update("DELETE FROM foods WHERE user_id = ?", importUser.getId());
+        statistics.clear();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportStatistics(BenchmarkParams params) {
+        System.out.printf("%n  %s: statements = %d, entities inserted = %d, result = %d%n",
+            params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1),
+            statistics.getPrepareStatementCount(), statistics.getEntityInsertCount(), lastResult);
+    }
+
+    @Benchmark
+    public FoodImportResult importFoods() throws IOException {
+        FoodImportResult result = "json".equals(format)
+            ? service.importJson(importUser, new ByteArrayInputStream(payload))
+            : service.importCsv(importUser, new ByteArrayInputStream(payload));
+        if (result.getImported() != rows) {
+            throw new IllegalStateException("登録件数が合いません: " + result);
+        }
+        lastResult = result.getImported();
+        return result;
+    }
+
+    @Benchmark
+    public long exportFoods() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        if ("json".equals(format)) {
+            service.exportJson(exportUserId, out);
+        } else {
+            service.exportCsv(exportUserId, out);
+        }
+        lastResult = out.count;
+        return out.count;
+    }
+
+    // 期限は11日後〜70日後に散らす（登録直後に期限間近のお知らせが出ないようにする）
+    private static byte[] csv(int rows) {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        StringBuilder csv = new StringBuilder("name,expirationDate\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("食品").append(i).append(',').append(tomorrow.plusDays(10 + i % 60)).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] json(int rows) {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":\"食品").append(i).append("\",\"expirationDate\":\"")
+                .append(tomorrow.plusDays(10 + i % 60)).append("\"}");
+        }
+        json.append(']');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 書き出した内容は捨て、バイト数だけを数える
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
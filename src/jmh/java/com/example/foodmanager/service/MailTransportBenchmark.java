@@ -0,0 +1,228 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.EmailOutbox;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * メール送信手段（Brevo API / SMTP）のベンチマーク
+ * ローカルに立てた Brevo API の代わりのHTTPサーバーと、最小限のSMTPサーバーに、
+ * 10,000件のメールを送信スレッド4本・50件ずつ（アプリの既定値）で送り切るまでの時間を測る
+ * latencyMillis はサーバーが1回応答するたびに待つ時間（ネットワークの往復の代わり）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class MailTransportBenchmark {
+
+    private static final int MESSAGES = 10_000;
+    private static final int BATCH_SIZE = 50;
+    private static final int THREADS = 4;
+
+    @Param({"brevo", "smtp"})
+    public String transportName;
+
+    @Param({"0", "1"})
+    public int latencyMillis;
+
+    private HttpServer httpServer;
+    private ServerSocket smtpServer;
+    private ExecutorService smtpConnections;
+    private ExecutorService sendExecutor;
+    private MailTransport transport;
+    private List<List<EmailOutbox>> batches;
+    private final AtomicLong received = new AtomicLong();
+
+    @Setup
+    public void setUp() throws IOException {
+        if ("brevo".equals(transportName)) {
+            httpServer = startHttpStub();
+            BrevoMailTransport brevo = new BrevoMailTransport(WebClient.builder(), 20, Duration.ofSeconds(5), Duration.ofSeconds(30));
+            ReflectionTestUtils.setField(brevo, "brevoApiKey", "benchmark");
+            ReflectionTestUtils.setField(brevo, "brevoApiUrl", "http://localhost:" + httpServer.getAddress().getPort() + "/v3/smtp/email");
+            ReflectionTestUtils.setField(brevo, "senderEmail", "sender@example.com");
+            transport = brevo;
+        } else {
+            smtpServer = startSmtpStub();
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(smtpServer.getLocalPort());
+            mailSender.setProtocol("smtp");
+            SmtpMailTransport smtp = new SmtpMailTransport(mailSender);
+            ReflectionTestUtils.setField(smtp, "senderEmail", "sender@example.com");
+            transport = smtp;
+        }
+        sendExecutor = Executors.newFixedThreadPool(THREADS);
+
+        batches = new ArrayList<>();
+        List<EmailOutbox> batch = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            EmailOutbox mail = new EmailOutbox();
+            mail.setId((long) i);
+            mail.setRecipient("user" + i + "@example.com");
+            mail.setSubject("【食品管理】消費期限が近づいています - 牛乳");
+            mail.setContentType(EmailOutbox.TEXT_CONTENT);
+            mail.setContent("牛乳の消費期限が近づいています。\n消費期限: 2025/01/01\n");
+            batch.add(mail);
+            if (batch.size() == BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sendExecutor.shutdownNow();
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        if (smtpServer != null) {
+            smtpServer.close();
+            smtpConnections.shutdownNow();
+        }
+        if (transport instanceof BrevoMailTransport brevo) {
+            brevo.shutdown();
+        }
+    }
+
+    @Benchmark
+    public long sendBurst() throws Exception {
+        List<Future<Map<EmailOutbox, Exception>>> sends = new ArrayList<>();
+        for (List<EmailOutbox> batch : batches) {
+            sends.add(sendExecutor.submit(() -> transport.send(batch)));
+        }
+        long failed = 0;
+        for (Future<Map<EmailOutbox, Exception>> send : sends) {
+            failed += send.get().size();
+        }
+        if (failed > 0) {
+            throw new IllegalStateException("送信に失敗したメールがあります: " + failed);
+        }
+        return received.get();
+    }
+
+    // Brevo API の代わり: リクエストを読み捨てて 201 を返す
+    private HttpServer startHttpStub() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v3/smtp/email", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            pause();
+            byte[] response = "{\"messageIds\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(201, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+            received.incrementAndGet();
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return server;
+    }
+
+    // SMTP サーバーの代わり: コマンドにはすべて成功を返し、DATA の本文は読み捨てる
+    private ServerSocket startSmtpStub() throws IOException {
+        ServerSocket server = new ServerSocket(0);
+        smtpConnections = Executors.newVirtualThreadPerTaskExecutor();
+        smtpConnections.submit(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    smtpConnections.submit(() -> handleSmtp(socket));
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+            return null;
+        });
+        return server;
+    }
+
+    private Void handleSmtp(Socket socket) throws IOException {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            reply(out, "220 localhost ESMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // 本文は読み捨てる
+                        }
+                        received.incrementAndGet();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return null;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        }
+        return null;
+    }
+
+    private void reply(Writer out, String line) throws IOException {
+        pause();
+        out.write(line);
+        out.write("\r\n");
+        out.flush();
+    }
+
+    private void pause() {
+        if (latencyMillis == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
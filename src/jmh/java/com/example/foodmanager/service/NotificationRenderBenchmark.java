@@ -0,0 +1,87 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通知メール本文の作成のベンチマーク
+ * 1件ずつの通知（テキスト）と、まとめて通知（HTMLテンプレート）を測る
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class NotificationRenderBenchmark {
+
+    // まとめて通知に含める食品の件数
+    @Param({"1", "10", "100"})
+    public int foodCount;
+
+    private SpringTemplateEngine templateEngine;
+    private User user;
+    private List<Food> foods;
+
+    @Setup
+    public void setUp() {
+        // アプリと同じ templates/ 以下のテンプレートを、アプリと同じ SpEL の式で描画する
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("山田太郎");
+        user.setEmail("taro@example.com");
+
+        foods = new ArrayList<>();
+        for (int i = 0; i < foodCount; i++) {
+            Food food = new Food();
+            food.setId((long) i + 1);
+            food.setName("食品" + i);
+            food.setExpirationDate(LocalDate.of(2025, 1, 1).plusDays(i));
+            food.setRegisteredAt(LocalDateTime.of(2024, 12, 1, 9, 0));
+            food.setUser(user);
+            foods.add(food);
+        }
+    }
+
+    @Benchmark
+    public String expirationNotificationText() {
+        return EmailService.expirationNotificationText(foods.get(0));
+    }
+
+    @Benchmark
+    public String expirationDigestHtml() {
+        Context context = new Context();
+        context.setVariable("username", user.getUsername());
+        context.setVariable("foods", foods);
+        return templateEngine.process("mail/expiration-digest", context);
+    }
+}
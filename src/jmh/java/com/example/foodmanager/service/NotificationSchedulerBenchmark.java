@@ -0,0 +1,137 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.BenchmarkApplication;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.FoodRepository;
+import com.example.foodmanager.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消費期限の定期通知（NotificationSchedulerService）のベンチマーク
+ * ユーザー users 人（通知時刻を30分刻みの48枠に散らす）と、1人 foodsPerUser 件の食品を投入し、
+ * 実行枠1回分の処理時間とSQLの件数を測る。
+ *  processSlot: 今の定期通知。slots=1 は最初の枠（約 users/48 人）、slots=48 は停止明けに1日分の枠をまとめて送る場合
+ *  legacyScan : 以前の定期通知のDBアクセス（通知時刻が一致するユーザーを読み、1人ずつ食品を検索する）だけ。送信はしない
+ * 毎回の実行の前に、通知日時・送った記録・送信待ちメール・担当の記録を元に戻す。
+ * SQLの件数は各イテレーションの終わりに「statements/op」として出力する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class NotificationSchedulerBenchmark {
+
+    private static final int SLOT_MINUTES = 30;
+    private static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"10"})
+    public int foodsPerUser;
+
+    @Param({"1", "48"})
+    public int slots;
+
+    private ConfigurableApplicationContext context;
+    private NotificationSchedulerService schedulerService;
+    private UserRepository userRepository;
+    private FoodRepository foodRepository;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private LocalDateTime firstSlot;
+    private LocalDateTime lastSlot;
+    private LocalDateTime slot;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "--app.notification.enabled=true");
+        jdbc = context.getBean(JdbcTemplate.class);
+        firstSlot = LocalDateTime.now().toLocalDate().plusDays(1).atStartOfDay();
+        lastSlot = firstSlot.plusMinutes((long) SLOT_MINUTES * (SLOTS_PER_DAY - 1));
+        slot = firstSlot.plusMinutes((long) SLOT_MINUTES * (slots - 1));
+        long firstUserId = BenchmarkApplication.seedUsers(jdbc, users, firstSlot, SLOT_MINUTES);
+        BenchmarkApplication.seedFoods(jdbc, firstUserId, users, foodsPerUser);
+        jdbc.execute("ANALYZE");
+
+        schedulerService = context.getBean(NotificationSchedulerService.class);
+        userRepository = context.getBean(UserRepository.class);
+        foodRepository = context.getBean(FoodRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        statistics = BenchmarkApplication.statistics(context);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // 通知したユーザーは通知日時が1日進むので戻し、送った分の記録を消す
+    @Setup(Level.Invocation)
+    public void resetNotifications() {
+        jdbc.update("UPDATE users SET next_notify_at = DATEADD('DAY', -1, next_notify_at) WHERE next_notify_at > ?",
+            lastSlot);
+        jdbc.update("DELETE FROM notification_ledger");
+        jdbc.update("DELETE FROM email_outbox");
+        jdbc.update("DELETE FROM scheduler_lease");
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportStatistics(BenchmarkParams params) {
+        Integer mails = jdbc.queryForObject("SELECT COUNT(*) FROM email_outbox", Integer.class);
+        System.out.printf("%n  %s: statements/op = %d, entities loaded/op = %d, mails = %d%n",
+            params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1),
+            statistics.getPrepareStatementCount(), statistics.getEntityLoadCount(), mails);
+    }
+
+    @Benchmark
+    public void processSlot() {
+        schedulerService.processSlot(slot);
+    }
+
+    @Benchmark
+    public int legacyScan() {
+        return readOnly.execute(status -> {
+            int found = 0;
+            for (int i = 0; i < slots; i++) {
+                LocalDateTime time = firstSlot.plusMinutes((long) SLOT_MINUTES * i);
+                for (User user : userRepository.findByNotificationTime(time.toLocalTime())) {
+                    found += foodRepository.findByUserAndExpirationDate(user,
+                        time.toLocalDate().plusDays(user.getNotificationDaysBefore())).size();
+                }
+            }
+            return found;
+        });
+    }
+}
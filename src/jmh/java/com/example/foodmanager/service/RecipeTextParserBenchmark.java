@@ -0,0 +1,112 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIの応答からレシピを読み取る処理のベンチマーク
+ * 一度に渡す場合（generate）と、少しずつ届く場合（ストリーミング）の両方を測る
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RecipeTextParserBenchmark {
+
+    // ストリーミングで1回に届く文字数の目安
+    private static final int CHUNK_SIZE = 64;
+
+    /**
+     * small: ふだんの応答 / huge: 手順が非常に多い応答 /
+     * pathological: ラベルのない短い行が大量に続き、最後に改行のない長い行がある応答
+     */
+    @Param({"small", "huge", "pathological"})
+    public String response;
+
+    private String text;
+    private List<String> chunks;
+
+    @Setup
+    public void setUp() {
+        text = switch (response) {
+            case "small" -> smallResponse();
+            case "huge" -> hugeResponse();
+            case "pathological" -> pathologicalResponse();
+            default -> throw new IllegalArgumentException(response);
+        };
+        chunks = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += CHUNK_SIZE) {
+            chunks.add(text.substring(i, Math.min(text.length(), i + CHUNK_SIZE)));
+        }
+    }
+
+    @Benchmark
+    public Recipe parseWhole() {
+        return RecipeTextParser.parse(text);
+    }
+
+    @Benchmark
+    public Recipe parseStreamed() {
+        RecipeTextParser parser = new RecipeTextParser();
+        for (String chunk : chunks) {
+            parser.feed(chunk);
+        }
+        return parser.finish();
+    }
+
+    private static String smallResponse() {
+        return """
+            料理名: **トマトと卵の炒め物**
+            材料: トマト 2個, 卵 3個, 塩 少々, ごま油 大さじ1
+            作り方:
+            1. トマトをくし切りにする
+            2. 卵を溶いて塩を加える
+            3. ごま油で卵を半熟に炒めて取り出す
+            4. トマトを炒め、卵を戻して全体を混ぜる
+            調理時間: 15分
+            難易度: 簡単
+            """;
+    }
+
+    private static String hugeResponse() {
+        StringBuilder sb = new StringBuilder()
+            .append("料理名: **作り置きおかずセット**\n")
+            .append("材料: ");
+        for (int i = 1; i <= 200; i++) {
+            sb.append("食材").append(i).append(" 100g, ");
+        }
+        sb.append("\n作り方:\n");
+        for (int i = 1; i <= 2000; i++) {
+            sb.append(i).append(". **手順").append(i).append("** 材料を切って中火で3分ほど炒める\n");
+        }
+        sb.append("調理時間: 120分\n難易度: 難しい\n");
+        return sb.toString();
+    }
+
+    private static String pathologicalResponse() {
+        StringBuilder sb = new StringBuilder()
+            .append("料理名: テスト\n")
+            .append("材料: 卵\n");
+        for (int i = 0; i < 20_000; i++) {
+            sb.append("**続き**\n");
+        }
+        sb.append("**".repeat(50_000));
+        return sb.toString();
+    }
+}
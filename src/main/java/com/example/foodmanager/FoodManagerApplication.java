@@ -1,6 +1,5 @@
 package com.example.foodmanager;
 
-import jakarta.annotation.PostConstruct;
 import java.util.TimeZone;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -12,14 +11,15 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableAsync
 public class FoodManagerApplication {
 
-    public static void main(String[] args) {
-        SpringApplication.run(FoodManagerApplication.class, args);
-    }
-
     // ▼▼▼ 追加: アプリ全体のタイムゾーンを日本時間(JST)に固定する ▼▼▼
-    @PostConstruct
-    public void init() {
+    // DB接続の作成より前に設定しないと、JDBCドライバが古いタイムゾーンを保持したままになり
+    // 日付(DATE)の読み書きが1日ずれることがあるため、クラスの読み込み時に設定する
+    static {
         TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
         System.out.println("アプリのタイムゾーンを Asia/Tokyo (日本時間) に設定しました");
     }
+
+    public static void main(String[] args) {
+        SpringApplication.run(FoodManagerApplication.class, args);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.example.foodmanager.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate の2次キャッシュ（エンティティ・クエリ結果）の設定
+ * キャッシュ本体は Caffeine（JCache）で、領域ごとの件数と有効期限は application.properties で指定する
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    // エンティティとクエリで指定している領域名
+    public static final String USER_REGION = "user";
+    public static final String SAVED_RECIPE_REGION = "savedRecipe";
+    public static final String SAVED_RECIPES_BY_USER_REGION = "savedRecipesByUser";
+    // Hibernate がクエリ結果の鮮度を判定するための領域（期限切れにしてはいけない）
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${app.entity-cache.user.maximum-size:1000}")
+    private long userMaximumSize;
+
+    @Value("${app.entity-cache.user.ttl:30m}")
+    private Duration userTtl;
+
+    @Value("${app.entity-cache.saved-recipe.maximum-size:10000}")
+    private long savedRecipeMaximumSize;
+
+    @Value("${app.entity-cache.saved-recipe.ttl:30m}")
+    private Duration savedRecipeTtl;
+
+    @Value("${app.entity-cache.saved-recipes-by-user.maximum-size:1000}")
+    private long savedRecipesByUserMaximumSize;
+
+    @Value("${app.entity-cache.saved-recipes-by-user.ttl:10m}")
+    private Duration savedRecipesByUserTtl;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        // JVM で共有される既定の CacheManager ではなく、アプリ（コンテキスト）ごとに専用のものを使う
+        // （同じ JVM でアプリを複数起動したとき、互いの領域を作り直したり閉じたりしないように）
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+            URI.create("foodmanager-" + UUID.randomUUID()), provider.getDefaultClassLoader());
+        createCache(cacheManager, USER_REGION, userMaximumSize, userTtl);
+        createCache(cacheManager, SAVED_RECIPE_REGION, savedRecipeMaximumSize, savedRecipeTtl);
+        createCache(cacheManager, SAVED_RECIPES_BY_USER_REGION, savedRecipesByUserMaximumSize, savedRecipesByUserTtl);
+        createCache(cacheManager, UPDATE_TIMESTAMPS_REGION, -1, null);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.use_query_cache", true);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+            // 上で用意していない領域（既定のクエリ結果領域など）は使われたときに作る
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "create");
+        };
+    }
+
+    private void createCache(CacheManager cacheManager, String name, long maximumSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maximumSize > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        }
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttl.toMillis())));
+        }
+        cacheManager.createCache(name, configuration);
+    }
+}
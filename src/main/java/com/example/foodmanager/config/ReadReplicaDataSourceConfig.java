@@ -0,0 +1,112 @@
+package com.example.foodmanager.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 読み取り専用のトランザクション（@Transactional(readOnly = true)）をリードレプリカに振り分ける
+ * app.datasource.replica.url を指定したときだけ有効で、それ以外は通常どおり1つの接続先を使う
+ * 接続先はトランザクションごとに決まる（open-in-view を無効にしているため、リクエストの最初の接続を使い回さない）。
+ * 書き込みのリクエストの後 read-your-writes の間は、同じセッションの読み取りも書き込み用に向ける
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replica.url:}'.isEmpty()")
+public class ReadReplicaDataSourceConfig {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+    // セッションに入れる「この時刻までは書き込み用から読む」
+    private static final String PRIMARY_UNTIL = ReadReplicaDataSourceConfig.class.getName() + ".PRIMARY_UNTIL";
+
+    // 処理中のリクエストの読み取りを書き込み用に向けるか
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    // 書き込み用（spring.datasource.*）
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // 読み取り用（app.datasource.replica.*）。ドライバは書き込み用と同じものを使う
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${app.datasource.replica.url}") String url,
+                                              @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+    }
+
+    // トランザクションの読み取り専用フラグが決まってから接続を取れるよう、実際の接続は最初のSQLまで遅らせる
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource) {
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(PRIMARY, primaryDataSource, REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    // 書き込みのリクエスト（GET / HEAD 以外）と、その後 readYourWrites の間の同じセッションのリクエストは書き込み用から読む
+    @Bean
+    public OncePerRequestFilter readYourWritesFilter(
+            @Value("${app.datasource.replica.read-your-writes:5s}") Duration readYourWrites) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                boolean write = !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod());
+                HttpSession session = request.getSession(false);
+                Object until = session == null ? null : session.getAttribute(PRIMARY_UNTIL);
+                boolean pinned = write || (until instanceof Long millis && millis > System.currentTimeMillis());
+                PRIMARY_PINNED.set(pinned);
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    PRIMARY_PINNED.remove();
+                    HttpSession current = request.getSession(false);
+                    if (write && current != null) {
+                        current.setAttribute(PRIMARY_UNTIL, System.currentTimeMillis() + readYourWrites.toMillis());
+                    }
+                }
+            }
+        };
+    }
+
+    static class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+            return readOnly && !Boolean.TRUE.equals(PRIMARY_PINNED.get()) ? REPLICA : PRIMARY;
+        }
+    }
+}
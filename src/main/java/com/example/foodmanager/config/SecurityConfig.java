@@ -7,6 +7,12 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.stream.Stream;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 @Configuration
 @EnableWebSecurity
@@ -16,7 +22,13 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/register", "/forgot-password", "/reset-password", "/css/**", "/js/**", "/webjars/**", "/h2-console/**", "/favicon.ico", "/favicon.svg", "/favicon-16x16.svg").permitAll()
+                // Actuator 用の別ポートにはアプリの DispatcherServlet がないため、パスの指定は MVC ではなく Ant 形式で照合する
+                .requestMatchers(Stream.of("/register", "/forgot-password", "/reset-password", "/css/**", "/js/**", "/webjars/**", "/h2-console/**", "/favicon.ico", "/favicon.svg", "/favicon-16x16.svg")
+                    .map(AntPathRequestMatcher::antMatcher).toArray(RequestMatcher[]::new)).permitAll()
+                // Actuator は management.server.address（既定は 127.0.0.1）の別ポートでだけ受け付けるので、ログインは求めない
+                .requestMatchers(antMatcher("/actuator/health/**"), antMatcher("/actuator/prometheus")).permitAll()
+                // 死活監視はアプリのポートでもログインなしで受け付ける
+                .requestMatchers(antMatcher("/livez"), antMatcher("/readyz")).permitAll()
                 .anyRequest().authenticated()
             )
             .formLogin(form -> form
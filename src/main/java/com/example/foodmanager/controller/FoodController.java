@@ -1,23 +1,33 @@
 package com.example.foodmanager.controller;
 
 import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.FoodImportResult;
+import com.example.foodmanager.model.FoodPage;
 import com.example.foodmanager.model.User;
 import com.example.foodmanager.repository.FoodRepository;
 import com.example.foodmanager.repository.SavedRecipeRepository;
-import com.example.foodmanager.repository.UserRepository;
-import com.example.foodmanager.service.EmailService;
-import com.example.foodmanager.service.MockEmailService;
+import com.example.foodmanager.service.CurrentUserService;
+import com.example.foodmanager.service.FoodImportExportService;
+import com.example.foodmanager.service.FoodService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 @Controller
 @RequestMapping("/")
@@ -25,32 +35,27 @@ import java.time.temporal.ChronoUnit;
 public class FoodController {
 
     private final FoodRepository foodRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
     private final SavedRecipeRepository savedRecipeRepository;
+    private final FoodService foodService;
+    private final FoodImportExportService foodImportExportService;
 
-    @Autowired(required = false)
-    private EmailService emailService;
-
-    @Autowired(required = false)
-    private MockEmailService mockEmailService;
-
-    @Value("${app.notification.enabled:false}")
-    private boolean notificationEnabled;
-
-    public FoodController(FoodRepository foodRepository, UserRepository userRepository, SavedRecipeRepository savedRecipeRepository) {
+    public FoodController(FoodRepository foodRepository, CurrentUserService currentUserService, SavedRecipeRepository savedRecipeRepository,
+                          FoodService foodService, FoodImportExportService foodImportExportService) {
         this.foodRepository = foodRepository;
-        this.userRepository = userRepository;
+        this.currentUserService = currentUserService;
         this.savedRecipeRepository = savedRecipeRepository;
+        this.foodService = foodService;
+        this.foodImportExportService = foodImportExportService;
     }
 
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        // メールアドレスで検索する
-        return userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserService.getCurrentUser();
     }
 
+    // 表示のみなので読み取り専用（リードレプリカがあればそちらを使う）
     @GetMapping
+    @Transactional(readOnly = true)
     public String index(Model model) {
         User currentUser = getCurrentUser();
         
@@ -60,20 +65,63 @@ public class FoodController {
         LocalDate now = LocalDate.now();
         LocalDate threeDaysLater = now.plusDays(3);
 
-        var foods = foodRepository.findByUserOrderByExpirationDateAsc(currentUser);
-        var warning = foodRepository.findByUserAndExpirationDateBetween(currentUser, now, threeDaysLater);
-        var expired = foodRepository.findByUserAndExpirationDateBefore(currentUser, now);
+        // 一覧は先頭ページの表示列だけを取得し（続きは /api/foods で読み込む）、
+        // 件数は1回の集計クエリでまとめて取得する
+        FoodPage foodPage = foodService.findPage(currentUser, null, null, FoodService.DEFAULT_PAGE_SIZE);
+        var summary = foodRepository.summarizeByUser(currentUser, now, threeDaysLater);
 
         var savedRecipes = savedRecipeRepository.findByUserOrderBySavedAtDesc(currentUser);
         model.addAttribute("savedRecipes", savedRecipes);
 
-        model.addAttribute("foods", foods);
-        model.addAttribute("count", foods.size());
-        model.addAttribute("warning", warning.size());
-        model.addAttribute("expired", expired.size());
+        model.addAttribute("foods", foodPage.getItems());
+        model.addAttribute("foodPage", foodPage);
+        model.addAttribute("count", summary.getTotal());
+        model.addAttribute("warning", summary.getWarning());
+        model.addAttribute("expired", summary.getExpired());
         return "list";
     }
 
+    // 一覧の続きを読み込むためのAPI（無限スクロール用）
+    @GetMapping("/api/foods")
+    @ResponseBody
+    public FoodPage listFoods(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDate,
+                              @RequestParam(required = false) Long afterId,
+                              @RequestParam(defaultValue = "" + FoodService.DEFAULT_PAGE_SIZE) int size) {
+        return foodService.findPage(getCurrentUser(), afterDate, afterId, size);
+    }
+
+    // 食品の一括登録（CSV または JSON のファイル）
+    @PostMapping("/api/foods/import")
+    @ResponseBody
+    public FoodImportResult importFoods(@RequestParam("file") MultipartFile file) throws IOException {
+        User currentUser = getCurrentUser();
+        String filename = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase();
+        boolean json = filename.endsWith(".json") || MediaType.APPLICATION_JSON_VALUE.equals(file.getContentType());
+        try (InputStream in = file.getInputStream()) {
+            return json
+                    ? foodImportExportService.importJson(currentUser, in)
+                    : foodImportExportService.importCsv(currentUser, in);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ファイルの形式が正しくありません", e);
+        }
+    }
+
+    // 食品の書き出し（format=csv / json）。件数が多くてもメモリに溜めずに送る
+    @GetMapping("/api/foods/export")
+    public ResponseEntity<StreamingResponseBody> exportFoods(@RequestParam(defaultValue = "csv") String format) {
+        // 書き出しは別スレッドで行われるため、ユーザーIDは先に取り出しておく
+        Long userId = getCurrentUser().getId();
+        boolean json = "json".equalsIgnoreCase(format);
+
+        StreamingResponseBody body = json
+                ? out -> foodImportExportService.exportJson(userId, out)
+                : out -> foodImportExportService.exportCsv(userId, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"foods." + (json ? "json" : "csv") + "\"")
+                .contentType(json ? MediaType.APPLICATION_JSON : new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
     @GetMapping("/add")
     public String addForm() {
         return "form";
@@ -89,13 +137,8 @@ public class FoodController {
             return "redirect:/add?error=past_date";
         }
 
-        Food food = new Food();
-        food.setName(name);
-        food.setExpirationDate(expDate);
-        food.setUser(currentUser);
-
-        foodRepository.save(food);
-        checkAndSendImmediateNotification(food, currentUser);
+        // 期限が近い場合のお知らせは、コミット後に別スレッドで送る（FoodChangeNotifier）
+        foodService.addFood(currentUser, name, expDate);
 
         return "redirect:/";
     }
@@ -103,8 +146,7 @@ public class FoodController {
     @GetMapping("/edit/{id}")
     public String editForm(@PathVariable Long id, Model model) {
         User currentUser = getCurrentUser();
-        Food food = foodRepository.findById(id)
-                .filter(f -> f.getUser().equals(currentUser))
+        Food food = foodRepository.findByIdAndUserId(id, currentUser.getId())
                 .orElseThrow(() -> new RuntimeException("Food not found or access denied"));
 
         model.addAttribute("food", food);
@@ -116,51 +158,14 @@ public class FoodController {
                          @RequestParam String name,
                          @RequestParam String expirationDate) {
         User currentUser = getCurrentUser();
-        Food food = foodRepository.findById(id)
-                .filter(f -> f.getUser().equals(currentUser))
-                .orElseThrow(() -> new RuntimeException("Food not found or access denied"));
-
-        LocalDate newDate = LocalDate.parse(expirationDate);
-        
-        if (!food.getExpirationDate().equals(newDate)) {
-            food.setNotificationSent(false);
-        }
-
-        food.setName(name);
-        food.setExpirationDate(newDate);
-
-        checkAndSendImmediateNotification(food, currentUser);
-
-        foodRepository.save(food);
+        foodService.updateFood(currentUser, id, name, LocalDate.parse(expirationDate));
         return "redirect:/";
     }
 
     @PostMapping("/delete")
     public String delete(@RequestParam Long id) {
         User currentUser = getCurrentUser();
-        foodRepository.findById(id)
-                .filter(food -> food.getUser().equals(currentUser))
-                .ifPresent(foodRepository::delete);
+        foodService.deleteFood(currentUser, id);
         return "redirect:/";
     }
-
-    private void checkAndSendImmediateNotification(Food food, User user) {
-        if (food.getExpirationDate() == null) {
-            return;
-        }
-
-        long daysUntil = ChronoUnit.DAYS.between(LocalDate.now(), food.getExpirationDate());
-
-        if (daysUntil <= user.getNotificationDaysBefore() && daysUntil >= 0) {
-            try {
-                if (emailService != null) {
-                    emailService.sendExpirationNotification(food);
-                } else if (mockEmailService != null) {
-                    mockEmailService.sendExpirationNotification(food);
-                }
-            } catch (Exception e) {
-                log.error("即時通知の送信に失敗しました", e);
-            }
-        }
-    }
 }
\ No newline at end of file
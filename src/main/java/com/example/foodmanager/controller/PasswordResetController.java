@@ -32,8 +32,9 @@ public class PasswordResetController {
         return "forgot-password";
     }
 
-    // 2. メール送信処理
+    // 2. メール送信処理（トークンの保存とメールの送信待ち登録を同じトランザクションで行う）
     @PostMapping("/forgot-password")
+    @Transactional
     public String processForgotPassword(@RequestParam String email, HttpServletRequest request, Model model) {
         User user = userRepository.findByEmail(email).orElse(null);
         
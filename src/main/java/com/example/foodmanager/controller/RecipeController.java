@@ -1,22 +1,29 @@
 package com.example.foodmanager.controller;
 
 import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.FoodPage;
 import com.example.foodmanager.model.Recipe;
 import com.example.foodmanager.model.SavedRecipe;
 import com.example.foodmanager.model.User;
 import com.example.foodmanager.repository.FoodRepository;
 import com.example.foodmanager.repository.SavedRecipeRepository;
-import com.example.foodmanager.repository.UserRepository;
-import com.example.foodmanager.service.GeminiAIService;
+import com.example.foodmanager.service.CurrentUserService;
+import com.example.foodmanager.service.FoodService;
+import com.example.foodmanager.service.GeminiBusyException;
+import com.example.foodmanager.service.RecipeCacheService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity; // 追加
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Controller
@@ -27,51 +34,81 @@ public class RecipeController {
     private FoodRepository foodRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
 
     @Autowired
     private SavedRecipeRepository savedRecipeRepository;
 
     @Autowired
-    private GeminiAIService geminiAIService;
+    private RecipeCacheService recipeCacheService;
+
+    @Autowired
+    private FoodService foodService;
 
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserService.getCurrentUser();
     }
 
+    // 表示のみなので読み取り専用（リードレプリカがあればそちらを使う）
     @GetMapping("/suggest")
+    @Transactional(readOnly = true)
     public String showRecipeSuggestion(Model model) {
         User currentUser = getCurrentUser();
-        List<Food> myFoods = foodRepository.findByUser(currentUser);
+        // 先頭ページだけを表示し、続きは /api/foods で読み込む
+        FoodPage foodPage = foodService.findPage(currentUser, null, null, FoodService.DEFAULT_PAGE_SIZE);
         
         // ▼▼▼ 追加: 削除候補として表示するために、保存済みレシピ一覧も渡す ▼▼▼
         List<SavedRecipe> savedRecipes = savedRecipeRepository.findByUserOrderBySavedAtDesc(currentUser);
         model.addAttribute("savedRecipes", savedRecipes);
 
-        model.addAttribute("foods", myFoods);
+        model.addAttribute("foods", foodPage.getItems());
+        model.addAttribute("foodPage", foodPage);
         return "recipe-suggest";
     }
 
+    // AIの応答を待つ間はリクエスト処理スレッドを解放する（非同期で応答を返す）
     @PostMapping("/generate")
     @ResponseBody
-    public Recipe generateRecipe(@RequestParam List<Long> selectedFoodIds) {
+    public Mono<Recipe> generateRecipe(@RequestParam List<Long> selectedFoodIds) {
+        List<String> ingredients = getSelectedIngredients(selectedFoodIds);
+        return recipeCacheService.getOrGenerate(ingredients);
+    }
+
+    // AIの応答が届くたびに途中までのレシピを Server-Sent Events で送る
+    // event: partial（途中経過） → done（完成） / error（失敗。data は {"code": "busy" または "error", "message": 表示する文言}）
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public Flux<ServerSentEvent<Object>> streamRecipe(@RequestParam List<Long> selectedFoodIds) {
+        List<String> ingredients = getSelectedIngredients(selectedFoodIds);
+
+        Flux<Recipe> recipes = recipeCacheService.stream(ingredients).cache();
+        return recipes
+            .map(recipe -> ServerSentEvent.<Object>builder(recipe).event("partial").build())
+            .concatWith(recipes.last().map(recipe -> ServerSentEvent.<Object>builder(recipe).event("done").build()))
+            .onErrorResume(e -> Flux.just(ServerSentEvent.<Object>builder(streamError(e)).event("error").build()));
+    }
+
+    // 混雑で断った場合は時間を置けば成功するので、その他の失敗と分けて伝える
+    private static Map<String, String> streamError(Throwable e) {
+        if (e instanceof GeminiBusyException) {
+            return Map.of("code", "busy", "message", "AIへの依頼が混み合っています。しばらく時間を置いてから再度お試しください。");
+        }
+        return Map.of("code", "error", "message",
+            "AIとの通信に失敗しました。一時的な不具合の可能性がありますので、もう一度お試しいただくか、しばらく時間を置いてから再度お試しください。");
+    }
+
+    private List<String> getSelectedIngredients(List<Long> selectedFoodIds) {
         User currentUser = getCurrentUser();
 
-        List<Food> selectedFoods = foodRepository.findAllById(selectedFoodIds).stream()
-                .filter(food -> food.getUser().getId().equals(currentUser.getId()))
-                .collect(Collectors.toList());
+        List<Food> selectedFoods = foodRepository.findAllByIdInAndUserId(selectedFoodIds, currentUser.getId());
 
         if (selectedFoods.isEmpty()) {
             throw new RuntimeException("有効な食品が選択されていません");
         }
 
-        List<String> ingredients = selectedFoods.stream()
+        return selectedFoods.stream()
                 .map(Food::getName)
                 .collect(Collectors.toList());
-
-        return geminiAIService.generateRecipeFromIngredients(ingredients);
     }
 
     @PostMapping("/save")
@@ -93,9 +130,7 @@ public class RecipeController {
     @PostMapping("/delete")
     public String deleteRecipe(@RequestParam Long id) {
         User currentUser = getCurrentUser();
-        savedRecipeRepository.findById(id)
-                .filter(r -> r.getUser().equals(currentUser))
-                .ifPresent(savedRecipeRepository::delete);
+        savedRecipeRepository.deleteByIdAndUserId(id, currentUser.getId());
         return "redirect:/?tab=recipes";
     }
 
@@ -104,9 +139,7 @@ public class RecipeController {
     @ResponseBody
     public ResponseEntity<String> deleteRecipeAjax(@RequestParam Long id) {
         User currentUser = getCurrentUser();
-        savedRecipeRepository.findById(id)
-                .filter(r -> r.getUser().equals(currentUser))
-                .ifPresent(savedRecipeRepository::delete);
+        savedRecipeRepository.deleteByIdAndUserId(id, currentUser.getId());
         return ResponseEntity.ok("Deleted");
     }
 }
\ No newline at end of file
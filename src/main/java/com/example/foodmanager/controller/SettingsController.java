@@ -1,16 +1,18 @@
 package com.example.foodmanager.controller;
 
 import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.FoodRepository;
 import com.example.foodmanager.repository.UserRepository;
+import com.example.foodmanager.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Controller
@@ -19,24 +21,36 @@ public class SettingsController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FoodRepository foodRepository;
+
+    @Autowired
+    private CurrentUserService currentUserService;
+
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        // ▼▼▼ 修正1: findByUsername ではなく findByEmail を使う ▼▼▼
-        return userRepository.findByEmail(auth.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserService.getCurrentUser();
     }
 
+    // 表示のみなので読み取り専用（リードレプリカがあればそちらを使う）
     @GetMapping("/settings")
+    @Transactional(readOnly = true)
     public String showSettings(Model model) {
-        model.addAttribute("user", getCurrentUser());
+        User user = getCurrentUser();
+        model.addAttribute("user", user);
+        // 画面の描画はトランザクションの外なので、食品の件数はここで数えておく
+        model.addAttribute("foodCount", foodRepository.countByUser(user));
         return "settings";
     }
 
     @PostMapping("/settings")
-    public String updateSettings(@RequestParam Integer days, @RequestParam String time) {
+    public String updateSettings(@RequestParam Integer days, @RequestParam String time,
+                                 @RequestParam(defaultValue = "false") boolean digest) {
         User user = getCurrentUser();
         user.setNotificationDaysBefore(days);
         user.setNotificationTime(LocalTime.parse(time));
+        user.setNotificationDigest(digest);
+        // 通知時刻が変わるので、次に通知する日時も計算し直す
+        user.scheduleNextNotification(LocalDateTime.now());
         userRepository.save(user);
         return "redirect:/settings?success";
     }
@@ -0,0 +1,29 @@
+package com.example.foodmanager.model;
+
+import jakarta.persistence.MappedSuperclass;
+import org.hibernate.Hibernate;
+
+/**
+ * IDで同一性を判定するエンティティの共通の親クラス
+ * 関連やコレクションを読み込まずに比較でき、遅延読み込みのプロキシとも比較できる。
+ * 保存前（IDがない）のインスタンスは、同じインスタンスどうしだけが等しい。
+ * 継承するエンティティは Lombok の @Data を使わず（equals/hashCode を生成させない）、@Getter/@Setter/@ToString を付ける
+ */
+@MappedSuperclass
+public abstract class BaseEntity {
+
+    public abstract Long getId();
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) return false;
+        return getId() != null && getId().equals(((BaseEntity) o).getId());
+    }
+
+    // 保存の前後でIDが変わっても同じ値になるよう、クラスだけから求める
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.foodmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * レシピ生成結果のキャッシュ（DB保存分）
+ * 同じ食材の組み合わせに対しては、有効期限内であれば AI を呼ばずにこの結果を返す
+ */
+@Data
+@Entity
+@Table(name = "recipe_cache")
+public class CachedRecipe {
+    // 正規化した食材の組み合わせの SHA-256（16進）
+    @Id
+    @Column(length = 64)
+    private String cacheKey;
+
+    // 正規化した食材の組み合わせ（確認用。選べる食材の数に上限がないため長さを制限しない）
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String ingredientSet;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String ingredients;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String instructions;
+
+    private String cookingTime;
+    private String difficulty;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public Recipe toRecipe() {
+        return new Recipe(title, ingredients, instructions, cookingTime, difficulty);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.foodmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 送信待ちメール（トランザクショナル・アウトボックス）
+ * 業務処理と同じトランザクションで書き込み、送信は EmailOutboxDispatcher がまとめて行う
+ */
+@Data
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_email_outbox_status_claimed_until", columnList = "status, claimed_until")
+})
+public class EmailOutbox {
+
+    public enum Status {
+        PENDING, // 送信待ち（再送待ちを含む）
+        SENDING, // いずれかのノードが送信中（claimed_by が担当）
+        SENT,    // 送信済み
+        DEAD     // 再送上限に達したため送信を諦めたもの
+    }
+
+    // Brevo APIの本文フィールド名
+    public static final String TEXT_CONTENT = "textContent";
+    public static final String HTML_CONTENT = "htmlContent";
+
+    // 送信者の表示名
+    public static final String SENDER_NAME = "食品管理アプリ";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, length = 20)
+    private String contentType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    // 送信を担当しているノード（1回の取り出しごとに別の値になる）と、その担当の期限
+    private String claimedBy;
+
+    private LocalDateTime claimedUntil;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
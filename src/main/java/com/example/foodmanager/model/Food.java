@@ -1,16 +1,24 @@
 package com.example.foodmanager.model;
 
 import jakarta.persistence.*;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
-@Data
+@Getter
+@Setter
+@ToString
 @Entity
-@Table(name = "foods")
-public class Food {
+@Table(name = "foods", indexes = {
+    @Index(name = "idx_foods_user_expiration", columnList = "user_id, expiration_date")
+})
+public class Food extends BaseEntity {
+    // 一括登録でINSERTをまとめて送れるよう、IDはシーケンスから50件ずつ確保する
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "food_seq")
+    @SequenceGenerator(name = "food_seq", sequenceName = "food_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -22,9 +30,7 @@ public class Food {
     @Column(nullable = false)
     private LocalDateTime registeredAt;
 
-    @Column(nullable = false)
-    private boolean notificationSent = false;
-
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -33,4 +39,4 @@ public class Food {
     protected void onCreate() {
         registeredAt = LocalDateTime.now();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.example.foodmanager.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 食品が登録・更新・削除されたことを知らせるイベント
+ * FoodService がトランザクションの中で発行し、受け取る側はコミット後に処理する（@TransactionalEventListener）
+ * エンティティそのものではなくIDだけを持たせ、受け取った側で必要な分を読み直す
+ * 一括登録では、まとめてINSERTした分（1バッチ分）を1つのイベントにする
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString
+public class FoodChanged {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final List<Long> foodIds;
+
+    public FoodChanged(Type type, Long userId, Long foodId) {
+        this(type, userId, List.of(foodId));
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.foodmanager.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 食品の一括登録の結果
+ * errors には登録できなかった行の理由を先頭から一定件数だけ入れる
+ * truncated は1回に登録できる件数の上限に達し、それ以降の行を読まずに打ち切った場合に true
+ */
+@Data
+@AllArgsConstructor
+public class FoodImportResult {
+    private int imported;
+    private int skipped;
+    private List<String> errors;
+    private boolean truncated;
+}
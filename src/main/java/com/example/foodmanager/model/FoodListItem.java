@@ -0,0 +1,12 @@
+package com.example.foodmanager.model;
+
+import java.time.LocalDate;
+
+/**
+ * 一覧表示に必要な列だけを読み込むための射影
+ */
+public interface FoodListItem {
+    Long getId();
+    String getName();
+    LocalDate getExpirationDate();
+}
@@ -0,0 +1,20 @@
+package com.example.foodmanager.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 食品一覧の1ページ分（キーセット方式）
+ * 次のページは (nextAfterDate, nextAfterId) より後ろの行から読み込む
+ */
+@Data
+@AllArgsConstructor
+public class FoodPage {
+    private List<FoodListItem> items;
+    private boolean hasNext;
+    private LocalDate nextAfterDate;
+    private Long nextAfterId;
+}
@@ -0,0 +1,10 @@
+package com.example.foodmanager.model;
+
+/**
+ * ホーム画面のサマリー表示用の集計結果（1回のクエリで取得する）
+ */
+public interface FoodSummary {
+    long getTotal();
+    long getWarning();
+    long getExpired();
+}
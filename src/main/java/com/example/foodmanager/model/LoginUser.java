@@ -0,0 +1,21 @@
+package com.example.foodmanager.model;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * ログイン中のユーザー（認証情報）
+ * ユーザーIDを持たせておき、リクエストごとにメールアドレスで検索し直さずに済むようにする
+ */
+@Getter
+public class LoginUser extends org.springframework.security.core.userdetails.User {
+
+    private final Long userId;
+
+    public LoginUser(Long userId, String email, String password, Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, authorities);
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.foodmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 送った通知の記録
+ * 食品・通知の種類・対象日の組ごとに1行で、行を追加できたときだけ通知を送る（同じ通知を二度送らない）
+ */
+@Data
+@Entity
+@Table(name = "notification_ledger")
+@IdClass(NotificationLedger.Key.class)
+public class NotificationLedger {
+
+    public enum Kind {
+        EXPIRATION_REMINDER // 消費期限が近いことのお知らせ（即時通知・定期通知で共通）
+    }
+
+    @Id
+    private Long foodId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private Kind kind;
+
+    // 通知の対象日（消費期限のお知らせなら消費期限の日付）
+    @Id
+    private LocalDate targetDate;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Data
+    public static class Key implements Serializable {
+        private Long foodId;
+        private Kind kind;
+        private LocalDate targetDate;
+    }
+}
@@ -1,20 +1,26 @@
 package com.example.foodmanager.model;
 
 import jakarta.persistence.*;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import java.time.LocalDateTime;
 
 @Entity
-@Data
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
-public class PasswordResetToken {
+@Table(indexes = @Index(name = "idx_password_reset_token_token", columnList = "token"))
+public class PasswordResetToken extends BaseEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String token;
 
+    @ToString.Exclude
     @OneToOne(targetEntity = User.class, fetch = FetchType.EAGER)
     @JoinColumn(nullable = false, name = "user_id")
     private User user;
@@ -27,4 +33,4 @@ public class PasswordResetToken {
         // トークンの有効期限は24時間に設定
         this.expiryDate = LocalDateTime.now().plusHours(24);
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,22 @@
 package com.example.foodmanager.model;
 
+import com.example.foodmanager.config.HibernateCacheConfig;
 import jakarta.persistence.*;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
-@Data
+@Getter
+@Setter
+@ToString
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.SAVED_RECIPE_REGION)
 @Table(name = "saved_recipes")
-public class SavedRecipe {
+public class SavedRecipe extends BaseEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -26,6 +35,7 @@ public class SavedRecipe {
 
     private LocalDateTime savedAt;
 
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -34,4 +44,4 @@ public class SavedRecipe {
     protected void onCreate() {
         savedAt = LocalDateTime.now();
     }
-}
\ No newline at end of file
+}
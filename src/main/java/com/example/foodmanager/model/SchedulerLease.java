@@ -0,0 +1,45 @@
+package com.example.foodmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 定期処理の担当（リース）
+ * 実行枠と分割番号の組ごとに1行で、先に行を書き込めたノードがその分を処理する
+ */
+@Data
+@Entity
+@Table(name = "scheduler_lease")
+@IdClass(SchedulerLease.Key.class)
+public class SchedulerLease {
+
+    @Id
+    @Column(length = 50)
+    private String jobName;
+
+    // 実行枠（定期処理が起動した時刻を分単位に切り捨てたもの）
+    @Id
+    private LocalDateTime slotAt;
+
+    @Id
+    private int partitionNo;
+
+    // 担当しているノード
+    @Column(nullable = false)
+    private String owner;
+
+    // 担当の期限の目安（完了しないまま過ぎていれば、担当したノードが途中で止まったとわかる）
+    @Column(nullable = false)
+    private LocalDateTime leasedUntil;
+
+    private LocalDateTime completedAt;
+
+    @Data
+    public static class Key implements Serializable {
+        private String jobName;
+        private LocalDateTime slotAt;
+        private int partitionNo;
+    }
+}
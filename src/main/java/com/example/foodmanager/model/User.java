@@ -1,15 +1,28 @@
 package com.example.foodmanager.model;
 
+import com.example.foodmanager.config.HibernateCacheConfig;
 import jakarta.persistence.*;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 
-@Data
+@Getter
+@Setter
+@ToString
 @Entity
-@Table(name = "users")
-public class User {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USER_REGION)
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_notification_time", columnList = "notification_time"),
+    @Index(name = "idx_users_next_notify_at", columnList = "next_notify_at")
+})
+public class User extends BaseEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -26,6 +39,7 @@ public class User {
     @Column(nullable = false)
     private String role = "ROLE_USER";
 
+    @ToString.Exclude
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Food> foods = new ArrayList<>();
 
@@ -34,4 +48,32 @@ public class User {
 
     @Column(nullable = false)
     private LocalTime notificationTime = LocalTime.of(9, 0);
-}
\ No newline at end of file
+
+    @Column(nullable = false)
+    private boolean notificationDigest = false; // trueなら通知を1通にまとめて送る
+
+    // 次に通知する日時（通知時刻の設定を変えたときと、通知するたびに計算し直す）
+    private LocalDateTime nextNotifyAt;
+
+    /**
+     * time より後で最初に来る通知時刻（notificationTime）の日時
+     */
+    public LocalDateTime nextNotificationAfter(LocalDateTime time) {
+        LocalDateTime next = time.toLocalDate().atTime(notificationTime);
+        return next.isAfter(time) ? next : next.plusDays(1);
+    }
+
+    /**
+     * now より後で最初の通知時刻を、次に通知する日時にする
+     */
+    public void scheduleNextNotification(LocalDateTime now) {
+        nextNotifyAt = nextNotificationAfter(now);
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (nextNotifyAt == null) {
+            scheduleNextNotification(LocalDateTime.now());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.foodmanager.repository;
+
+import com.example.foodmanager.model.CachedRecipe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface CachedRecipeRepository extends JpaRepository<CachedRecipe, String> {
+    @Modifying
+    @Query("DELETE FROM CachedRecipe c WHERE c.createdAt < :threshold")
+    int deleteByCreatedAtBefore(@Param("threshold") LocalDateTime threshold);
+}
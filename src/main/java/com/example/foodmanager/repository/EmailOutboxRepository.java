@@ -0,0 +1,104 @@
+package com.example.foodmanager.repository;
+
+import com.example.foodmanager.model.EmailOutbox;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    long countByStatus(EmailOutbox.Status status);
+
+    // 送信時刻を過ぎた送信待ちメールのIDを古い順に取得（この後 claim で担当を取る）
+    @Query("""
+        SELECT o.id FROM EmailOutbox o
+        WHERE o.status = com.example.foodmanager.model.EmailOutbox$Status.PENDING AND o.nextAttemptAt <= :now
+        ORDER BY o.id
+        """)
+    List<Long> findClaimableIds(@Param("now") LocalDateTime now, Limit limit);
+
+    // 送信の担当を取る（まだ送信待ちのものだけ。他のノードが先に取った分は数に入らない）
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE EmailOutbox o
+        SET o.status = com.example.foodmanager.model.EmailOutbox$Status.SENDING,
+            o.claimedBy = :claimedBy, o.claimedUntil = :claimedUntil
+        WHERE o.id IN :ids AND o.status = com.example.foodmanager.model.EmailOutbox$Status.PENDING
+        """)
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("claimedBy") String claimedBy,
+              @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    // claim で担当を取ったメール（主キーで読み、他のノードが先に取った分は担当名で除く）
+    List<EmailOutbox> findByIdInAndClaimedByOrderByIdAsc(Collection<Long> ids, String claimedBy);
+
+    // 送信できたメールをまとめて送信済みにする（担当が変わっていないものだけ）
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE EmailOutbox o
+        SET o.status = com.example.foodmanager.model.EmailOutbox$Status.SENT,
+            o.attempts = o.attempts + 1, o.sentAt = :now, o.lastError = NULL,
+            o.claimedBy = NULL, o.claimedUntil = NULL
+        WHERE o.id IN :ids AND o.claimedBy = :claimedBy
+        """)
+    int markSent(@Param("ids") Collection<Long> ids,
+                 @Param("claimedBy") String claimedBy,
+                 @Param("now") LocalDateTime now);
+
+    // 送信できなかったメールを、再送待ち（PENDING）または諦めた状態（DEAD）にする
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE EmailOutbox o
+        SET o.status = :status, o.attempts = :attempts, o.lastError = :lastError, o.nextAttemptAt = :nextAttemptAt,
+            o.claimedBy = NULL, o.claimedUntil = NULL
+        WHERE o.id = :id AND o.claimedBy = :claimedBy
+        """)
+    int markFailed(@Param("id") Long id,
+                   @Param("claimedBy") String claimedBy,
+                   @Param("status") EmailOutbox.Status status,
+                   @Param("attempts") int attempts,
+                   @Param("lastError") String lastError,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    // 送らずに担当を手放す（送信スレッドの待ち行列が一杯だった分）
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE EmailOutbox o
+        SET o.status = com.example.foodmanager.model.EmailOutbox$Status.PENDING,
+            o.claimedBy = NULL, o.claimedUntil = NULL
+        WHERE o.id IN :ids AND o.claimedBy = :claimedBy
+        """)
+    int release(@Param("ids") Collection<Long> ids, @Param("claimedBy") String claimedBy);
+
+    // 担当の期限を過ぎても送信中のまま（送信中にノードが止まった）のものを送信待ちに戻す
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE EmailOutbox o
+        SET o.status = com.example.foodmanager.model.EmailOutbox$Status.PENDING,
+            o.claimedBy = NULL, o.claimedUntil = NULL
+        WHERE o.status = com.example.foodmanager.model.EmailOutbox$Status.SENDING AND o.claimedUntil < :now
+        """)
+    int requeueExpiredClaims(@Param("now") LocalDateTime now);
+
+    // 送信済み・送信を諦めたメールのうち、作成から保存期間を過ぎたものを削除する
+    @Transactional
+    @Modifying
+    @Query("""
+        DELETE FROM EmailOutbox o
+        WHERE o.status IN (com.example.foodmanager.model.EmailOutbox$Status.SENT,
+                           com.example.foodmanager.model.EmailOutbox$Status.DEAD)
+          AND o.createdAt < :threshold
+        """)
+    int deleteFinishedBefore(@Param("threshold") LocalDateTime threshold);
+}
@@ -1,18 +1,104 @@
 package com.example.foodmanager.repository;
 
 import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.FoodListItem;
+import com.example.foodmanager.model.FoodSummary;
 import com.example.foodmanager.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface FoodRepository extends JpaRepository<Food, Long> {
     List<Food> findByUser(User user);
     List<Food> findByUserOrderByExpirationDateAsc(User user);
     List<Food> findByUserAndExpirationDateBefore(User user, LocalDate date);
     List<Food> findByUserAndExpirationDateBetween(User user, LocalDate start, LocalDate end);
-    List<Food> findByRegisteredAtBeforeAndNotificationSentFalse(LocalDateTime registeredAt);
     List<Food> findByUserAndExpirationDate(User user, LocalDate date);
-}
\ No newline at end of file
+
+    long countByUser(User user);
+
+    // 本人の食品だけを取得・削除する（所有者の確認をクエリの条件で行う）
+    Optional<Food> findByIdAndUserId(Long id, Long userId);
+    List<Food> findAllByIdInAndUserId(Collection<Long> ids, Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Food f WHERE f.id = :id AND f.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // 一覧の先頭ページ: エンティティを読まずに表示列だけを (期限日, ID) 順で取得
+    List<FoodListItem> findListItemsByUserOrderByExpirationDateAscIdAsc(User user, Limit limit);
+
+    // 一覧の続きのページ: (期限日, ID) がカーソルより後ろの行を取得（キーセット方式）
+    @Query("""
+        SELECT f.id AS id, f.name AS name, f.expirationDate AS expirationDate
+        FROM Food f
+        WHERE f.user = :user
+          AND (f.expirationDate > :afterDate
+               OR (f.expirationDate = :afterDate AND f.id > :afterId))
+        ORDER BY f.expirationDate ASC, f.id ASC
+        """)
+    List<FoodListItem> findListItemsAfter(@Param("user") User user,
+                                          @Param("afterDate") LocalDate afterDate,
+                                          @Param("afterId") Long afterId,
+                                          Limit limit);
+
+    // 書き出し用: 本人の食品の表示列を (期限日, ID) 順に少しずつ読み込む
+    @Query("""
+        SELECT f.id AS id, f.name AS name, f.expirationDate AS expirationDate
+        FROM Food f
+        WHERE f.user.id = :userId
+        ORDER BY f.expirationDate ASC, f.id ASC
+        """)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<FoodListItem> streamListItemsByUserId(@Param("userId") Long userId);
+
+    // ホーム画面用: 全件数・期限間近・期限切れの件数を1回の集計で取得
+    @Query("""
+        SELECT COUNT(f) AS total,
+               COALESCE(SUM(CASE WHEN f.expirationDate BETWEEN :today AND :warningLimit THEN 1 ELSE 0 END), 0) AS warning,
+               COALESCE(SUM(CASE WHEN f.expirationDate < :today THEN 1 ELSE 0 END), 0) AS expired
+        FROM Food f
+        WHERE f.user = :user
+        """)
+    FoodSummary summarizeByUser(@Param("user") User user,
+                                @Param("today") LocalDate today,
+                                @Param("warningLimit") LocalDate warningLimit);
+
+    // 定期通知用: 通知日時を迎えたユーザーの、通知対象の食品をまとめて取得
+    // （期限日 = 通知日 + ユーザーごとの「何日前に通知」）。ユーザーごとに連続して流れるよう並べる
+    @Query("""
+        SELECT f FROM Food f JOIN FETCH f.user u
+        WHERE u IN :users
+          AND f.expirationDate = cast(u.nextNotifyAt as LocalDate) + (u.notificationDaysBefore) day
+        ORDER BY u.id, f.id
+        """)
+    List<Food> findDueForNotification(@Param("users") Collection<User> users);
+
+    // 即時通知用: 登録・更新された食品のうち、期限が今日から「何日前に通知」の範囲に入るもの
+    @Query("""
+        SELECT f FROM Food f JOIN FETCH f.user u
+        WHERE f.id IN :ids AND u.id = :userId
+          AND f.expirationDate >= :today
+          AND f.expirationDate <= cast(:today as LocalDate) + (u.notificationDaysBefore) day
+        ORDER BY f.expirationDate, f.id
+        """)
+    List<Food> findDueForImmediateNotification(@Param("userId") Long userId,
+                                               @Param("ids") Collection<Long> ids,
+                                               @Param("today") LocalDate today);
+}
@@ -0,0 +1,33 @@
+package com.example.foodmanager.repository;
+
+import com.example.foodmanager.model.NotificationLedger;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public interface NotificationLedgerRepository extends JpaRepository<NotificationLedger, NotificationLedger.Key> {
+
+    // まだ記録がなければ追加する（追加できたら1、すでにあれば0を返す）
+    // 書き換えるのはこの表だけなので、他のエンティティの2次キャッシュは消さない
+    @Modifying
+    @Query(value = """
+        INSERT INTO notification_ledger (food_id, kind, target_date, created_at)
+        SELECT f.id, :kind, :targetDate, :now FROM foods f
+        WHERE f.id = :foodId
+          AND NOT EXISTS (
+            SELECT 1 FROM notification_ledger l
+            WHERE l.food_id = :foodId AND l.kind = :kind AND l.target_date = :targetDate)
+        """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notification_ledger"))
+    int insertIfAbsent(@Param("foodId") Long foodId,
+                       @Param("kind") String kind,
+                       @Param("targetDate") LocalDate targetDate,
+                       @Param("now") LocalDateTime now);
+}
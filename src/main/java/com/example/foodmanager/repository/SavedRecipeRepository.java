@@ -1,11 +1,31 @@
 package com.example.foodmanager.repository;
 
+import com.example.foodmanager.config.HibernateCacheConfig;
 import com.example.foodmanager.model.SavedRecipe;
 import com.example.foodmanager.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.List;
 
 public interface SavedRecipeRepository extends JpaRepository<SavedRecipe, Long> {
+    // ホーム画面・レシピ画面で毎回読まれ、変更は少ないためクエリ結果を2次キャッシュに載せる
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.SAVED_RECIPES_BY_USER_REGION)
+    })
     List<SavedRecipe> findByUserOrderBySavedAtDesc(User user);
     long countByUser(User user);
-}
\ No newline at end of file
+
+    // 本人のレシピだけを削除する（所有者の確認をクエリの条件で行う）
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SavedRecipe r WHERE r.id = :id AND r.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+}
@@ -0,0 +1,86 @@
+package com.example.foodmanager.repository;
+
+import com.example.foodmanager.model.SchedulerLease;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, SchedulerLease.Key> {
+
+    // 担当を取る（同じ行がすでにあれば主キー違反になる）
+    // 書き換えるのはこの表だけなので、他のエンティティの2次キャッシュは消さない
+    @Modifying
+    @Query(value = """
+        INSERT INTO scheduler_lease (job_name, slot_at, partition_no, owner, leased_until)
+        VALUES (:jobName, :slotAt, :partitionNo, :owner, :leasedUntil)
+        """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "scheduler_lease"))
+    int insertLease(@Param("jobName") String jobName,
+                    @Param("slotAt") LocalDateTime slotAt,
+                    @Param("partitionNo") int partitionNo,
+                    @Param("owner") String owner,
+                    @Param("leasedUntil") LocalDateTime leasedUntil);
+
+    // 期限を過ぎても完了していない担当を引き継ぐ（引き継げたら1、期限内か完了済みなら0を返す）
+    // 複数のノードが同時に引き継ごうとしても、行ロックで後から更新する方は条件に合わなくなる
+    @Modifying
+    @Query(value = """
+        UPDATE scheduler_lease SET owner = :owner, leased_until = :leasedUntil
+        WHERE job_name = :jobName AND slot_at = :slotAt AND partition_no = :partitionNo
+          AND completed_at IS NULL AND leased_until < :now
+        """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "scheduler_lease"))
+    int takeOverExpired(@Param("jobName") String jobName,
+                        @Param("slotAt") LocalDateTime slotAt,
+                        @Param("partitionNo") int partitionNo,
+                        @Param("owner") String owner,
+                        @Param("leasedUntil") LocalDateTime leasedUntil,
+                        @Param("now") LocalDateTime now);
+
+    // 同じ分割番号を、他の実行枠で処理中のノードがいるか（期限内で完了していない担当があるか）
+    @Query("""
+        SELECT CASE WHEN COUNT(l) > 0 THEN true ELSE false END FROM SchedulerLease l
+        WHERE l.jobName = :jobName AND l.partitionNo = :partitionNo AND l.slotAt <> :slotAt
+          AND l.completedAt IS NULL AND l.leasedUntil > :now
+        """)
+    boolean existsActiveInOtherSlot(@Param("jobName") String jobName,
+                                    @Param("slotAt") LocalDateTime slotAt,
+                                    @Param("partitionNo") int partitionNo,
+                                    @Param("now") LocalDateTime now);
+
+    // 完了にする（担当が自分の場合だけ。そうでなければ0を返す）
+    @Modifying
+    @Query("""
+        UPDATE SchedulerLease l SET l.completedAt = :now
+        WHERE l.jobName = :jobName AND l.slotAt = :slotAt AND l.partitionNo = :partitionNo
+          AND l.owner = :owner AND l.completedAt IS NULL
+        """)
+    int complete(@Param("jobName") String jobName,
+                 @Param("slotAt") LocalDateTime slotAt,
+                 @Param("partitionNo") int partitionNo,
+                 @Param("owner") String owner,
+                 @Param("now") LocalDateTime now);
+
+    // 完了しないまま担当を手放す（期限を今にして、他のノードや次の実行枠が取れるようにする）
+    @Modifying
+    @Query("""
+        UPDATE SchedulerLease l SET l.leasedUntil = :now
+        WHERE l.jobName = :jobName AND l.slotAt = :slotAt AND l.partitionNo = :partitionNo
+          AND l.owner = :owner AND l.completedAt IS NULL
+        """)
+    int release(@Param("jobName") String jobName,
+                @Param("slotAt") LocalDateTime slotAt,
+                @Param("partitionNo") int partitionNo,
+                @Param("owner") String owner,
+                @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM SchedulerLease l WHERE l.jobName = :jobName AND l.slotAt < :threshold")
+    int deleteBySlotAtBefore(@Param("jobName") String jobName, @Param("threshold") LocalDateTime threshold);
+}
@@ -1,13 +1,63 @@
 package com.example.foodmanager.repository;
 
 import com.example.foodmanager.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    // 通知日時を書き換える SQL の対象として Hibernate に伝える名前
+    // users 表を指定すると User の2次キャッシュが丸ごと消えるので、この列だけを表す名前にし、
+    // 書き換えたユーザーのキャッシュは呼び出し側で1件ずつ消す（users を対象にしたクエリキャッシュはない）
+    String NEXT_NOTIFY_AT_SPACE = "users.next_notify_at";
+
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     List<User> findByNotificationTime(LocalTime time);
+
+    // 定期通知用: 通知日時を迎えたユーザーを古い順に取得
+    // ユーザーIDを partitions で割った余りが partition のユーザーだけを対象にする（複数台での分担用）
+    @Query("""
+        SELECT u FROM User u
+        WHERE u.nextNotifyAt <= :now AND MOD(u.id, :partitions) = :partition
+        ORDER BY u.nextNotifyAt, u.id
+        """)
+    List<User> findDueForNotification(@Param("now") LocalDateTime now,
+                                      @Param("partitions") int partitions,
+                                      @Param("partition") int partition,
+                                      Limit limit);
+
+    // 次の通知日時がまだ決まっていないユーザー（next_notify_at 列の追加前からいるユーザー）
+    List<User> findByNextNotifyAtIsNull(Limit limit);
+
+    // 通知したユーザーの次の通知日時を1日進める
+    // 他のノードが先に進めていた場合は更新件数が ids の件数より少なくなる
+    @Modifying
+    @Query(value = """
+        UPDATE users SET next_notify_at = next_notify_at + INTERVAL '1' DAY
+        WHERE id IN (:ids) AND next_notify_at <= :now
+        """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = NEXT_NOTIFY_AT_SPACE))
+    int advanceNextNotifyAt(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // 次の通知日時を指定した日時に変える（current から変わっていない場合だけ）
+    @Modifying
+    @Query(value = "UPDATE users SET next_notify_at = :next WHERE id = :id AND next_notify_at = :current",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = NEXT_NOTIFY_AT_SPACE))
+    int rescheduleNextNotifyAt(@Param("id") Long id,
+                               @Param("current") LocalDateTime current,
+                               @Param("next") LocalDateTime next);
 }
\ No newline at end of file
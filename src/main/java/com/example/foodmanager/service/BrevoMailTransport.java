@@ -0,0 +1,141 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.EmailOutbox;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brevo のバッチ送信API（messageVersions）で、渡されたメールを1リクエストで送る
+ * 1リクエストは全件成功か全件失敗のため、宛先の誤りなどで 4xx が返った場合は半分に分けて送り直し、
+ * 失敗の原因になったメールだけを失敗として返す
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.mail.transport", havingValue = "brevo", matchIfMissing = true)
+public class BrevoMailTransport implements MailTransport {
+
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+
+    @Value("${brevo.api.key:}")
+    private String brevoApiKey;
+
+    @Value("${brevo.api.url:https://api.brevo.com/v3/smtp/email}")
+    private String brevoApiUrl;
+
+    @Value("${mail.sender:}")
+    private String senderEmail;
+
+    public BrevoMailTransport(WebClient.Builder webClientBuilder,
+                              @Value("${app.mail.http.max-connections:20}") int maxConnections,
+                              @Value("${app.mail.http.connect-timeout:5s}") Duration connectTimeout,
+                              @Value("${app.mail.http.response-timeout:30s}") Duration responseTimeout) {
+        // 接続は使い回し、同時接続数と接続待ちの件数に上限を設ける
+        this.connectionProvider = ConnectionProvider.builder("brevo")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(maxConnections * 2)
+            .pendingAcquireTimeout(connectTimeout)
+            .maxIdleTime(Duration.ofSeconds(30))
+            .evictInBackground(Duration.ofSeconds(60))
+            .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .responseTimeout(responseTimeout);
+        this.webClient = webClientBuilder
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.dispose();
+    }
+
+    @Override
+    public String name() {
+        return "brevo";
+    }
+
+    @Override
+    public boolean isReady() {
+        if (brevoApiKey == null || brevoApiKey.isEmpty()) {
+            log.warn("Brevo APIキーが設定されていません。送信待ちメールは保留します。");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Map<EmailOutbox, Exception> send(List<EmailOutbox> mails) {
+        try {
+            post(mails);
+            return Map.of();
+        } catch (WebClientResponseException e) {
+            if (!isMessageError(e.getStatusCode())) {
+                throw e;
+            }
+            if (mails.size() == 1) {
+                return Map.of(mails.get(0), e);
+            }
+            // どのメールが原因かわからないので、半分ずつ送り直して絞り込む
+            int half = mails.size() / 2;
+            Map<EmailOutbox, Exception> failures = new IdentityHashMap<>();
+            failures.putAll(send(mails.subList(0, half)));
+            failures.putAll(send(mails.subList(half, mails.size())));
+            log.warn("Brevo APIがメールの内容を受け付けませんでした: {}件中{}件", mails.size(), failures.size());
+            return failures;
+        }
+    }
+
+    // 4xx のうち、認証・権限・回数制限以外はメールの内容（宛先など）の誤りとみなす
+    private static boolean isMessageError(HttpStatusCode status) {
+        return status.is4xxClientError()
+            && status.value() != 401 && status.value() != 403 && status.value() != 429;
+    }
+
+    private void post(List<EmailOutbox> mails) {
+        String contentType = mails.get(0).getContentType();
+
+        List<Map<String, Object>> messageVersions = new ArrayList<>();
+        for (EmailOutbox mail : mails) {
+            messageVersions.add(Map.of(
+                "to", List.of(Map.of("email", mail.getRecipient())),
+                "subject", mail.getSubject(),
+                contentType, mail.getContent()
+            ));
+        }
+
+        // 共通の件名・本文は必須項目のため先頭のメールの内容を入れる（各メールは messageVersions で上書きされる）
+        Map<String, Object> body = new HashMap<>();
+        body.put("sender", Map.of("name", EmailOutbox.SENDER_NAME, "email", senderEmail));
+        body.put("subject", mails.get(0).getSubject());
+        body.put(contentType, mails.get(0).getContent());
+        body.put("messageVersions", messageVersions);
+
+        webClient.post()
+            .uri(brevoApiUrl)
+            .header("api-key", brevoApiKey)
+            .header("Content-Type", "application/json")
+            .bodyValue(body)
+            .retrieve()
+            .bodyToMono(String.class)
+            .block();
+    }
+}
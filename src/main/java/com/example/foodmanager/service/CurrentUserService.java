@@ -0,0 +1,37 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.LoginUser;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class CurrentUserService {
+
+    private final UserRepository userRepository;
+
+    /**
+     * ログイン中のユーザーを取得する
+     * ログイン時に保存したユーザーIDで読み込む。User は2次キャッシュに載っているので、通常はDBに問い合わせない
+     * （open-in-view は無効にしているため、遅延読み込みの参照ではなく読み込み済みのエンティティを返す）
+     * ログインしていない場合（認証情報がない・匿名ユーザー）は、ユーザーが見つからない場合と同じ例外を投げる
+     */
+    public User getCurrentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            throw new RuntimeException("User not found");
+        }
+        if (auth.getPrincipal() instanceof LoginUser loginUser) {
+            return userRepository.findById(loginUser.getUserId())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+        }
+        // ユーザーIDを持たない認証情報（更新前のセッションなど）はメールアドレスで検索する
+        return userRepository.findByEmail(auth.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.EmailOutbox;
+import com.example.foodmanager.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * アウトボックスに溜まった送信待ちメールを、MailTransport（Brevo API または SMTP）でまとめて送る
+ * 失敗したメールは指数バックオフで再送し、上限回数に達したら DEAD にして送信を諦める
+ * 送信は専用のスレッド（mail-send-*）で並行して行い、スレッド数・待ち行列には上限を設ける
+ * 複数台で動かしても同じメールを二重に送らないよう、送る前に status = SENDING と担当（claimed_by）を書き込み、
+ * 書き込めた分だけを送る。担当の期限（claim-ttl）を過ぎても送信中のものは、止まったノードの分として送信待ちに戻す
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "app.notification.enabled", havingValue = "true", matchIfMissing = true)
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final MailTransport transport;
+    private final String nodeId;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.backoff-initial:30s}")
+    private Duration backoffInitial;
+
+    @Value("${app.mail.outbox.backoff-max:1h}")
+    private Duration backoffMax;
+
+    @Value("${app.mail.outbox.claim-ttl:5m}")
+    private Duration claimTtl;
+
+    @Value("${app.mail.outbox.retention:30d}")
+    private Duration retention;
+
+    // 送信を並行して行うスレッド（スレッド数・待ち行列とも上限あり）
+    private final ThreadPoolTaskExecutor sendExecutor;
+
+    // 送信状況（メトリクスとして公開する）
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final Timer sendSuccessTimer;
+    private final Timer sendFailureTimer;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter deadCounter;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository, MailTransport transport,
+                                 SchedulerLeaseService leaseService,
+                                 @Value("${app.mail.executor.pool-size:4}") int poolSize,
+                                 @Value("${app.mail.executor.queue-capacity:100}") int queueCapacity,
+                                 @Value("${app.mail.executor.rejection-policy:caller-runs}") String rejectionPolicy,
+                                 MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.transport = transport;
+        this.nodeId = leaseService.getNodeId();
+
+        // 待ち行列が一杯のときは、caller-runs なら呼び出し元（スケジューラ）で送り、
+        // drop なら送らずに送信待ちのまま残す（次回の実行で送る）
+        boolean dropWhenFull = "drop".equalsIgnoreCase(rejectionPolicy);
+        this.sendExecutor = new ThreadPoolTaskExecutor();
+        sendExecutor.setThreadNamePrefix("mail-send-");
+        sendExecutor.setCorePoolSize(poolSize);
+        sendExecutor.setMaxPoolSize(poolSize);
+        sendExecutor.setQueueCapacity(queueCapacity);
+        sendExecutor.setRejectedExecutionHandler((task, executor) -> {
+            rejectedCount.incrementAndGet();
+            if (dropWhenFull || executor.isShutdown()) {
+                throw new RejectedExecutionException("メール送信の待ち行列が一杯です");
+            }
+            task.run();
+        });
+        sendExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        sendExecutor.setAwaitTerminationSeconds(30);
+        sendExecutor.initialize();
+
+        // 送信スレッドの待ち行列・実行中の件数など（executor.* に name=mail-send のタグで出る）
+        ExecutorServiceMetrics.monitor(meterRegistry, sendExecutor.getThreadPoolExecutor(), "mail-send");
+        FunctionCounter.builder("mail.executor.rejected", rejectedCount, AtomicLong::get)
+            .description("待ち行列が一杯で送信スレッドに渡せなかった件数")
+            .register(meterRegistry);
+        this.sendSuccessTimer = sendTimer(meterRegistry, transport.name(), "success");
+        this.sendFailureTimer = sendTimer(meterRegistry, transport.name(), "error");
+        this.sentCounter = messageCounter(meterRegistry, transport.name(), "sent");
+        this.failedCounter = messageCounter(meterRegistry, transport.name(), "failed");
+        this.deadCounter = messageCounter(meterRegistry, transport.name(), "dead");
+    }
+
+    // provider には送信手段（brevo / smtp）が入る
+    private static Timer sendTimer(MeterRegistry meterRegistry, String provider, String outcome) {
+        return Timer.builder("mail.send.requests")
+            .description("メール送信の呼び出し時間（1回で batch-size 件まで送る）")
+            .tag("provider", provider)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private static Counter messageCounter(MeterRegistry meterRegistry, String provider, String outcome) {
+        return Counter.builder("mail.messages")
+            .description("送信したメールの件数（結果別）")
+            .tag("provider", provider)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:10000}")
+    public void dispatchPending() {
+        if (!transport.isReady()) {
+            return;
+        }
+
+        // 送信中のまま担当の期限が過ぎたもの（送信中にノードが止まった）を送信待ちに戻す
+        int requeued = outboxRepository.requeueExpiredClaims(LocalDateTime.now());
+        if (requeued > 0) {
+            log.warn("送信中のまま担当の期限が過ぎたメールを送信待ちに戻しました: {}件", requeued);
+        }
+
+        // 送信スレッドの数だけバッチをまとめて担当し、並行して送る
+        int fetchSize = batchSize * sendExecutor.getMaxPoolSize();
+
+        // 1回の実行で送信待ちがなくなるまで繰り返す
+        while (true) {
+            List<Long> ids = outboxRepository.findClaimableIds(LocalDateTime.now(), Limit.of(fetchSize));
+            if (ids.isEmpty()) {
+                return;
+            }
+
+            // 取り出しごとに別の担当名を使い、自分が書き込めた行だけを読み直す（他のノードが先に取った分は含まれない）
+            String claimedBy = nodeId + "/" + UUID.randomUUID();
+            if (outboxRepository.claim(ids, claimedBy, LocalDateTime.now().plus(claimTtl)) == 0) {
+                continue;
+            }
+            List<EmailOutbox> pending = outboxRepository.findByIdInAndClaimedByOrderByIdAsc(ids, claimedBy);
+
+            // 本文の種類（テキスト/HTML）ごとに、batchSize 件ずつまとめて送る（Brevo なら1リクエスト、SMTP なら1接続）
+            List<Future<?>> sends = new ArrayList<>();
+            boolean dropped = false;
+            Map<String, List<EmailOutbox>> byContentType = pending.stream()
+                    .collect(Collectors.groupingBy(EmailOutbox::getContentType));
+            for (List<EmailOutbox> mails : byContentType.values()) {
+                for (int from = 0; from < mails.size(); from += batchSize) {
+                    List<EmailOutbox> chunk = mails.subList(from, Math.min(from + batchSize, mails.size()));
+                    try {
+                        sends.add(sendExecutor.submit(() -> sendBatch(chunk, claimedBy)));
+                    } catch (TaskRejectedException e) {
+                        log.warn("メール送信の待ち行列が一杯のため、{}件は次回送信します", chunk.size());
+                        outboxRepository.release(chunk.stream().map(EmailOutbox::getId).toList(), claimedBy);
+                        dropped = true;
+                    }
+                }
+            }
+            for (Future<?> send : sends) {
+                try {
+                    send.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    // 結果を書き込めなかった分は送信中のまま残り、担当の期限が過ぎてから送信待ちに戻る
+                    log.error("メール送信処理でエラーが発生しました", e.getCause());
+                }
+            }
+
+            // 送れずに残したものがある場合は、同じメールを読み直し続けないよう今回はここで終える
+            if (dropped || ids.size() < fetchSize) {
+                return;
+            }
+        }
+    }
+
+    // 送信済み・送信を諦めたメールは保存期間（retention）を過ぎたら1日1回削除する
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeFinished() {
+        int deleted = outboxRepository.deleteFinishedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("保存期間を過ぎた送信済みメールを削除しました: {}件", deleted);
+        }
+    }
+
+    private void sendBatch(List<EmailOutbox> mails, String claimedBy) {
+        long start = System.nanoTime();
+        Map<EmailOutbox, Exception> failures;
+        try {
+            failures = transport.send(mails);
+        } catch (Exception e) {
+            sendFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.error("メール送信失敗（{}, {}件）: {}", transport.name(), mails.size(), e.getMessage());
+            for (EmailOutbox mail : mails) {
+                markFailed(mail, claimedBy, e);
+            }
+            return;
+        }
+        sendSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        // 一部だけ送れなかった場合（宛先を拒否されたなど）は、そのメールだけ再送に回す
+        List<Long> sentIds = new ArrayList<>(mails.size());
+        for (EmailOutbox mail : mails) {
+            Exception error = failures.get(mail);
+            if (error != null) {
+                markFailed(mail, claimedBy, error);
+            } else {
+                sentIds.add(mail.getId());
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            // 送信済みにするのは1回のUPDATEでまとめて行う
+            outboxRepository.markSent(sentIds, claimedBy, LocalDateTime.now());
+        }
+        sentCounter.increment(sentIds.size());
+        log.info("メール送信成功（{}）: {}件（失敗 {}件）", transport.name(), sentIds.size(), failures.size());
+    }
+
+    private void markFailed(EmailOutbox mail, String claimedBy, Exception e) {
+        int attempts = mail.getAttempts() + 1;
+        String lastError = truncate(e.getMessage());
+
+        if (attempts >= maxAttempts) {
+            deadCounter.increment();
+            outboxRepository.markFailed(mail.getId(), claimedBy, EmailOutbox.Status.DEAD, attempts, lastError, mail.getNextAttemptAt());
+            log.error("メール送信を諦めました（再送上限 {} 回）: id={}, 宛先={}", maxAttempts, mail.getId(), mail.getRecipient());
+            return;
+        }
+
+        failedCounter.increment();
+        // 指数バックオフ: 初回待ち時間 × 2^(試行回数-1)、上限あり
+        Duration delay = backoffInitial.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (delay.compareTo(backoffMax) > 0) {
+            delay = backoffMax;
+        }
+        outboxRepository.markFailed(mail.getId(), claimedBy, EmailOutbox.Status.PENDING, attempts, lastError,
+            LocalDateTime.now().plus(delay));
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -1,88 +1,88 @@
 package com.example.foodmanager.service;
 
+import com.example.foodmanager.model.EmailOutbox;
 import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.annotation.Transactional;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
 
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * メール送信サービス
+ * メールはその場では送らず、呼び出し元のトランザクション内でアウトボックスに書き込む。
+ * 実際の送信は EmailOutboxDispatcher が MailTransport（Brevo API または SMTP）でまとめて行う。
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(name = "app.notification.enabled", havingValue = "true", matchIfMissing = true)
 public class EmailService {
 
-    // HTTPリクエストを送るためのクライアント
-    private final WebClient.Builder webClientBuilder;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy/MM/dd");
 
-    @Value("${brevo.api.key:}")
-    private String brevoApiKey;
+    private final EmailOutboxRepository outboxRepository;
 
-    @Value("${mail.sender:}")
-    private String senderEmail;
+    // メール本文（HTML）の描画用
+    private final ITemplateEngine templateEngine;
 
     /**
-     * Brevo APIを使ってメールを送信する共通メソッド
+     * 送信待ちメールとしてアウトボックスに登録する共通メソッド
+     * contentType には本文の種類（EmailOutbox.TEXT_CONTENT または EmailOutbox.HTML_CONTENT）を指定する
      */
-    private void sendEmailViaApi(String toEmail, String subject, String content) {
-        if (brevoApiKey == null || brevoApiKey.isEmpty()) {
-            log.warn("Brevo APIキーが設定されていません。メール送信をスキップします。");
-            return;
-        }
+    private void enqueue(String toEmail, String subject, String contentType, String content) {
+        EmailOutbox mail = new EmailOutbox();
+        mail.setRecipient(toEmail);
+        mail.setSubject(subject);
+        mail.setContentType(contentType);
+        mail.setContent(content);
+        outboxRepository.save(mail);
 
-        try {
-            // Brevo APIに送るデータ（JSON形式）を作成
-            Map<String, Object> body = Map.of(
-                "sender", Map.of("name", "食品管理アプリ", "email", senderEmail),
-                "to", List.of(Map.of("email", toEmail)),
-                "subject", subject,
-                "textContent", content
-            );
-
-            // APIへのPOST送信
-            String response = webClientBuilder.build().post()
-                .uri("https://api.brevo.com/v3/smtp/email")
-                .header("api-key", brevoApiKey)
-                .header("Content-Type", "application/json")
-                .bodyValue(body)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block(); 
-
-            log.info("Brevo APIでメール送信成功: {}", toEmail);
-
-        } catch (Exception e) {
-            log.error("Brevo API送信失敗: {}", e.getMessage());
-        }
+        log.debug("メールを送信待ちに登録しました: {}", toEmail);
     }
 
-    @Async
+    @Transactional
     public void sendExpirationNotification(Food food) {
         String subject = "消費期限のお知らせ - " + food.getName();
-        String messageText = String.format(
-            "こんにちは%sさん\n\n" +
+        enqueue(food.getUser().getEmail(), subject, EmailOutbox.TEXT_CONTENT, expirationNotificationText(food));
+    }
+
+    /**
+     * 消費期限のお知らせ（1件ずつ送る場合）の本文
+     */
+    static String expirationNotificationText(Food food) {
+        return "こんにちは" + food.getUser().getUsername() + "さん\n\n" +
             "以下の食品の消費期限が近づいています。\n\n" +
-            "■ 食品名: %s\n" +
-            "■ 消費期限: %s\n\n" +
+            "■ 食品名: " + food.getName() + "\n" +
+            "■ 消費期限: " + DATE.format(food.getExpirationDate()) + "\n\n" +
             "使い道に迷ったらホーム画面から「レシピ提案」を試してみてください！\n\n" +
-            "食品管理システム",
-            food.getUser().getUsername(),
-            food.getName(),
-            food.getExpirationDate().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"))
-        );
+            "食品管理システム";
+    }
+
+    /**
+     * 期限が近い複数の食品を1通にまとめて通知する（ダイジェスト通知）
+     */
+    @Transactional
+    public void sendExpirationDigest(User user, List<Food> foods) {
+        String subject = "消費期限のお知らせ - " + foods.size() + "件の食品";
+
+        Context context = new Context();
+        context.setVariable("username", user.getUsername());
+        context.setVariable("foods", foods);
+        String html = templateEngine.process("mail/expiration-digest", context);
 
-        sendEmailViaApi(food.getUser().getEmail(), subject, messageText);
+        enqueue(user.getEmail(), subject, EmailOutbox.HTML_CONTENT, html);
     }
     
     // パスワードリセット用
-    @Async
+    @Transactional
     public void sendPasswordResetEmail(String toEmail, String resetUrl) {
         String subject = "パスワード再設定のご案内";
         String messageText = "以下のリンクをクリックしてパスワードを再設定してください。\n" +
@@ -90,6 +90,6 @@ public class EmailService {
                     resetUrl + "\n\n" +
                     "もしこのメールに心当たりがない場合は、無視してください。";
         
-        sendEmailViaApi(toEmail, subject, messageText);
+        enqueue(toEmail, subject, EmailOutbox.TEXT_CONTENT, messageText);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.NotificationLedger;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.NotificationLedgerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 消費期限のお知らせを送る
+ * 即時通知（食品の登録・更新時）と定期通知のどちらもここを通し、送る前に notification_ledger へ記録する。
+ * 記録を追加できた食品だけを送るので、同じ食品・同じ消費期限のお知らせは再実行や複数台でも一度しか送らない。
+ * 記録は送信待ちメールと同じトランザクションで書くため、送信が失敗して取り消されれば記録も残らない。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExpirationNotificationService {
+
+    private final NotificationLedgerRepository ledgerRepository;
+
+    @Autowired(required = false)
+    private EmailService emailService;
+
+    @Autowired(required = false)
+    private MockEmailService mockEmailService;
+
+    @Value("${app.notification.enabled:false}")
+    private boolean notificationEnabled;
+
+    /**
+     * ユーザーの複数の食品についてお知らせを送る
+     * まだ送っていない食品だけを送り、その件数を返す
+     */
+    @Transactional
+    public int notifyUser(User user, List<Food> foods) {
+        List<Food> unsent = foods.stream().filter(this::markSent).toList();
+        if (unsent.isEmpty()) {
+            return 0;
+        }
+        if (user.isNotificationDigest()) {
+            // まとめて通知: 1ユーザーにつき1通
+            sendDigest(user, unsent);
+        } else {
+            for (Food food : unsent) {
+                sendNotification(food);
+            }
+        }
+        log.info("ユーザー {} に {} 件の通知を送りました（送信済み {} 件）",
+            user.getUsername(), unsent.size(), foods.size() - unsent.size());
+        return unsent.size();
+    }
+
+    // 送った記録を追加する（すでにあれば false）
+    private boolean markSent(Food food) {
+        // 同時に同じ記録を追加しようとした場合は主キーの重複で後の方が失敗し、そのトランザクションごと取り消される
+        return ledgerRepository.insertIfAbsent(food.getId(), NotificationLedger.Kind.EXPIRATION_REMINDER.name(),
+            food.getExpirationDate(), LocalDateTime.now()) == 1;
+    }
+
+    private void sendDigest(User user, List<Food> foods) {
+        if (notificationEnabled && emailService != null) {
+            emailService.sendExpirationDigest(user, foods);
+        } else if (mockEmailService != null) {
+            mockEmailService.sendExpirationDigest(user, foods);
+        }
+    }
+
+    private void sendNotification(Food food) {
+        if (notificationEnabled && emailService != null) {
+            emailService.sendExpirationNotification(food);
+        } else if (mockEmailService != null) {
+            mockEmailService.sendExpirationNotification(food);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.FoodChanged;
+import com.example.foodmanager.repository.FoodRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 食品の登録・更新（FoodChanged）を受けて、期限が近ければその場でお知らせを送る
+ * コミットされた変更だけを扱い、送信はリクエストのスレッドではなく専用のスレッド（food-events-*）で行う。
+ * ユーザーの最初の変更から coalesce-window だけ待ってから送り、その間に届いた同じユーザーの変更は
+ * 同じ回にまとめる（続けて何件か登録しても、まとめて通知なら1通になる）。
+ */
+@Component
+@Slf4j
+public class FoodChangeNotifier {
+
+    private static final int QUERY_CHUNK = 500;
+
+    private final ExpirationNotificationService notificationService;
+    private final FoodRepository foodRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskScheduler scheduler;
+    private final Duration coalesceWindow;
+    private final int queueCapacity;
+    private final Counter rejectedCounter;
+
+    // ユーザーID → まだ処理していない食品ID（キーがある間は、そのユーザーの処理が予約されている）
+    private final Map<Long, Set<Long>> pending = new ConcurrentHashMap<>();
+
+    public FoodChangeNotifier(ExpirationNotificationService notificationService, FoodRepository foodRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${app.food-events.pool-size:2}") int poolSize,
+                              @Value("${app.food-events.queue-capacity:1000}") int queueCapacity,
+                              @Value("${app.food-events.coalesce-window:10s}") Duration coalesceWindow,
+                              MeterRegistry meterRegistry) {
+        this.notificationService = notificationService;
+        this.foodRepository = foodRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.coalesceWindow = coalesceWindow;
+        this.queueCapacity = queueCapacity;
+
+        this.scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("food-events-");
+        scheduler.setPoolSize(poolSize);
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        scheduler.initialize();
+
+        ExecutorServiceMetrics.monitor(meterRegistry, scheduler.getScheduledThreadPoolExecutor(), "food-events");
+        this.rejectedCounter = Counter.builder("food.events.rejected")
+            .description("待ち行列が一杯で処理できなかった食品の変更の件数")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onFoodChanged(FoodChanged event) {
+        if (event.getType() == FoodChanged.Type.DELETED) {
+            return;
+        }
+        Long userId = event.getUserId();
+        boolean[] first = new boolean[1];
+        pending.compute(userId, (id, foodIds) -> {
+            if (foodIds == null) {
+                foodIds = new HashSet<>();
+                first[0] = true;
+            }
+            foodIds.addAll(event.getFoodIds());
+            return foodIds;
+        });
+        if (!first[0]) {
+            // 同じユーザーの処理がすでに予約されているので、そちらでまとめて送る
+            return;
+        }
+        if (pending.size() > queueCapacity) {
+            // 待っているユーザーが多すぎる場合は受け付けない。送れなかった分は定期通知（通知時刻）で送られる
+            Set<Long> dropped = pending.remove(userId);
+            rejectedCounter.increment(dropped == null ? 0 : dropped.size());
+            log.warn("即時通知の待ち行列が一杯のため、ユーザー {} の通知を定期通知に回します", userId);
+            return;
+        }
+        scheduler.schedule(() -> process(userId), Instant.now().plus(coalesceWindow));
+    }
+
+    private void process(Long userId) {
+        // ここで取り出した後に届いた変更は、新しい処理として待ち行列に入る
+        Set<Long> foodIds = pending.remove(userId);
+        if (foodIds == null) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // 一括登録では件数が多くなるので、IN句に渡すIDは QUERY_CHUNK 件ずつに分ける
+                List<Long> ids = new ArrayList<>(foodIds);
+                List<Food> due = new ArrayList<>();
+                for (int from = 0; from < ids.size(); from += QUERY_CHUNK) {
+                    due.addAll(foodRepository.findDueForImmediateNotification(
+                        userId, ids.subList(from, Math.min(from + QUERY_CHUNK, ids.size())), LocalDate.now()));
+                }
+                if (!due.isEmpty()) {
+                    // 同じ食品・同じ期限のお知らせをすでに送っていれば送らない（定期通知とも共通）
+                    notificationService.notifyUser(due.get(0).getUser(), due);
+                }
+            });
+        } catch (Exception e) {
+            log.error("即時通知の送信に失敗しました", e);
+        }
+    }
+}
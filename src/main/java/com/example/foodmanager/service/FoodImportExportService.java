@@ -0,0 +1,312 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.FoodChanged;
+import com.example.foodmanager.model.FoodImportResult;
+import com.example.foodmanager.model.FoodListItem;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.FoodRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 食品の一括登録（CSV / JSON）と書き出し
+ * どちらもファイル全体をメモリに載せず、1行（1件）ずつ読み書きする
+ * 登録した食品はバッチごとに FoodChanged で知らせる（期限が近いもののお知らせはコミット後に送られる）
+ */
+@Service
+@Slf4j
+public class FoodImportExportService {
+
+    // JDBCバッチの件数（hibernate.jdbc.batch_size）と揃える
+    private static final int BATCH_SIZE = 50;
+    // 結果に含めるエラー行の最大件数
+    private static final int MAX_ERRORS = 20;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final char UTF8_BOM = '\uFEFF';
+    private static final DateTimeFormatter SLASH_DATE = DateTimeFormatter.ofPattern("yyyy/M/d");
+
+    private final FoodRepository foodRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JsonFactory jsonFactory = new ObjectMapper().getFactory();
+    private final int maxRows;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public FoodImportExportService(FoodRepository foodRepository, ApplicationEventPublisher eventPublisher,
+                                   @Value("${app.food-import.max-rows:100000}") int maxRows) {
+        this.foodRepository = foodRepository;
+        this.eventPublisher = eventPublisher;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * CSV（1列目: 名称, 2列目: 消費期限）から食品をまとめて登録する
+     * 1行目が見出し（name,expirationDate / 名称,消費期限 など）の場合は読み飛ばす
+     */
+    @Transactional
+    public FoodImportResult importCsv(User user, InputStream in) throws IOException {
+        Importer importer = new Importer(user);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int recordLine = lineNumber;
+                if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == UTF8_BOM) {
+                    line = line.substring(1);
+                }
+                // "..." の中の改行（書き出し時に囲んだ分）は、閉じる " がある行までつなげて1件にする
+                while (hasOpenQuote(line)) {
+                    String next = reader.readLine();
+                    if (next == null) {
+                        break;
+                    }
+                    lineNumber++;
+                    line = line + '\n' + next;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> columns = splitCsvLine(line);
+                String name = columns.get(0);
+                String date = columns.size() > 1 ? columns.get(1) : null;
+                if (recordLine == 1 && parseDate(date) == null && isHeader(name)) {
+                    continue;
+                }
+                if (importer.isFull()) {
+                    importer.truncate(recordLine + "行目");
+                    break;
+                }
+                importer.add(recordLine + "行目", name, date);
+            }
+        }
+        return importer.finish();
+    }
+
+    /**
+     * JSON（[{"name": "...", "expirationDate": "yyyy-MM-dd"}, ...]）から食品をまとめて登録する
+     */
+    @Transactional
+    public FoodImportResult importJson(User user, InputStream in) throws IOException {
+        Importer importer = new Importer(user);
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSONは配列で指定してください");
+            }
+            int index = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                index++;
+                if (importer.isFull()) {
+                    importer.truncate(index + "件目");
+                    break;
+                }
+                JsonNode node = parser.readValueAsTree();
+                importer.add(index + "件目", node.path("name").asText(null), node.path("expirationDate").asText(null));
+            }
+        }
+        return importer.finish();
+    }
+
+    /**
+     * 本人の食品をCSVで書き出す（Excelで開けるよう先頭にBOMを付ける）
+     */
+    @Transactional(readOnly = true)
+    public void exportCsv(Long userId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(UTF8_BOM);
+        writer.write("name,expirationDate\r\n");
+        try (Stream<FoodListItem> items = foodRepository.streamListItemsByUserId(userId)) {
+            for (FoodListItem item : (Iterable<FoodListItem>) items::iterator) {
+                writer.write(quoteCsv(item.getName()));
+                writer.write(',');
+                writer.write(item.getExpirationDate().toString());
+                writer.write("\r\n");
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * 本人の食品をJSON（importJson と同じ形式）で書き出す
+     */
+    @Transactional(readOnly = true)
+    public void exportJson(Long userId, OutputStream out) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out);
+             Stream<FoodListItem> items = foodRepository.streamListItemsByUserId(userId)) {
+            generator.writeStartArray();
+            for (FoodListItem item : (Iterable<FoodListItem>) items::iterator) {
+                generator.writeStartObject();
+                generator.writeStringField("name", item.getName());
+                generator.writeStringField("expirationDate", item.getExpirationDate().toString());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * 読み込んだ行を検証し、BATCH_SIZE 件ごとにまとめてINSERTする
+     * 書き込んだ分は永続化コンテキストから外し、件数が増えてもメモリを使い続けないようにする
+     */
+    private class Importer {
+        private final User user;
+        private final LocalDate today = LocalDate.now();
+        private final List<Food> batch = new ArrayList<>(BATCH_SIZE);
+        private final List<String> errors = new ArrayList<>();
+        private int imported;
+        private int skipped;
+        private boolean truncated;
+
+        Importer(User user) {
+            this.user = user;
+        }
+
+        boolean isFull() {
+            return imported + batch.size() >= maxRows;
+        }
+
+        void add(String position, String name, String date) {
+            String trimmedName = name == null ? "" : name.strip();
+            LocalDate expirationDate = parseDate(date);
+
+            String error = null;
+            if (trimmedName.isEmpty()) {
+                error = "名称がありません";
+            } else if (trimmedName.length() > MAX_NAME_LENGTH) {
+                error = "名称が長すぎます";
+            } else if (expirationDate == null) {
+                error = "消費期限の形式が正しくありません: " + date;
+            } else if (expirationDate.isBefore(today)) {
+                error = "消費期限が過去の日付です: " + date;
+            }
+            if (error != null) {
+                skipped++;
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add(position + ": " + error);
+                }
+                return;
+            }
+
+            Food food = new Food();
+            food.setName(trimmedName);
+            food.setExpirationDate(expirationDate);
+            food.setUser(user);
+            batch.add(food);
+            if (batch.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        // 上限を超えた行は登録しない。黙って捨てず、どこから登録していないかを結果に入れる
+        void truncate(String position) {
+            truncated = true;
+            errors.add(position + "以降: 1回に登録できるのは" + maxRows + "件までのため、登録していません");
+        }
+
+        FoodImportResult finish() {
+            flush();
+            log.info("食品を一括登録しました: {}件（スキップ {}件{}）", imported, skipped, truncated ? "、上限で打ち切り" : "");
+            return new FoodImportResult(imported, skipped, errors, truncated);
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            foodRepository.saveAll(batch);
+            entityManager.flush();
+            eventPublisher.publishEvent(new FoodChanged(FoodChanged.Type.CREATED, user.getId(),
+                    batch.stream().map(Food::getId).toList()));
+            entityManager.clear();
+            imported += batch.size();
+            batch.clear();
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.strip();
+        try {
+            return trimmed.indexOf('/') >= 0 ? LocalDate.parse(trimmed, SLASH_DATE) : LocalDate.parse(trimmed);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isHeader(String firstColumn) {
+        String column = firstColumn.strip().toLowerCase();
+        return column.equals("name") || column.equals("名称") || column.equals("食品名");
+    }
+
+    // CSVの1行を列に分ける（"..." で囲まれた列の中のカンマと "" に対応）
+    private static List<String> splitCsvLine(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        columns.add(current.toString());
+        return columns;
+    }
+
+    // " の数が奇数なら、"..." が閉じないまま行が終わっている（"" は2個と数えるので偶奇は変わらない）
+    private static boolean hasOpenQuote(String line) {
+        return line.chars().filter(c -> c == '"').count() % 2 != 0;
+    }
+
+    private static String quoteCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
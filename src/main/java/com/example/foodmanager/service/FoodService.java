@@ -0,0 +1,89 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.FoodChanged;
+import com.example.foodmanager.model.FoodListItem;
+import com.example.foodmanager.model.FoodPage;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.FoodRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class FoodService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private final FoodRepository foodRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 期限日・IDの昇順で食品一覧を1ページ分取得する
+     * afterDate / afterId が null の場合は先頭ページを返す
+     */
+    @Transactional(readOnly = true)
+    public FoodPage findPage(User user, LocalDate afterDate, Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // 1件多く読んで次のページがあるかを判定する
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<FoodListItem> rows = (afterDate == null || afterId == null)
+                ? foodRepository.findListItemsByUserOrderByExpirationDateAscIdAsc(user, limit)
+                : foodRepository.findListItemsAfter(user, afterDate, afterId, limit);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<FoodListItem> items = hasNext ? rows.subList(0, pageSize) : rows;
+
+        if (!hasNext) {
+            return new FoodPage(items, false, null, null);
+        }
+        FoodListItem last = items.get(items.size() - 1);
+        return new FoodPage(items, true, last.getExpirationDate(), last.getId());
+    }
+
+    /**
+     * 食品を登録する
+     * 通知などの後続の処理は FoodChanged を受け取った側がコミット後に行う
+     */
+    @Transactional
+    public Food addFood(User user, String name, LocalDate expirationDate) {
+        Food food = new Food();
+        food.setName(name);
+        food.setExpirationDate(expirationDate);
+        food.setUser(user);
+        foodRepository.save(food);
+        eventPublisher.publishEvent(new FoodChanged(FoodChanged.Type.CREATED, user.getId(), food.getId()));
+        return food;
+    }
+
+    /**
+     * 本人の食品の名称と消費期限を更新する
+     */
+    @Transactional
+    public Food updateFood(User user, Long id, String name, LocalDate expirationDate) {
+        Food food = foodRepository.findByIdAndUserId(id, user.getId())
+                .orElseThrow(() -> new RuntimeException("Food not found or access denied"));
+        food.setName(name);
+        food.setExpirationDate(expirationDate);
+        eventPublisher.publishEvent(new FoodChanged(FoodChanged.Type.UPDATED, user.getId(), food.getId()));
+        return food;
+    }
+
+    /**
+     * 本人の食品を削除する（他人の食品や存在しないIDなら何もしない）
+     */
+    @Transactional
+    public void deleteFood(User user, Long id) {
+        if (foodRepository.deleteByIdAndUserId(id, user.getId()) > 0) {
+            eventPublisher.publishEvent(new FoodChanged(FoodChanged.Type.DELETED, user.getId(), id));
+        }
+    }
+}
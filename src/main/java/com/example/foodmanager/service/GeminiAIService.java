@@ -3,17 +3,30 @@ package com.example.foodmanager.service;
 import com.example.foodmanager.model.Recipe;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.transport.ProxyProvider;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
@@ -25,10 +38,32 @@ public class GeminiAIService {
     @Value("${gemini.api.url}")
     private String apiUrl;
 
+    @Value("${gemini.api.stream-url:https://generativelanguage.googleapis.com/v1/models/gemini-2.5-flash:streamGenerateContent}")
+    private String streamApiUrl;
+
+    // メトリクスのタグ（呼び出し方法）
+    private static final String MODE_GENERATE = "generate";
+    private static final String MODE_STREAM = "stream";
+
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final GeminiCallLimiter callLimiter;
+    private final MeterRegistry meterRegistry;
+
+    // 同じプロンプトで実行中の呼び出し（同時に来た同じ依頼は1回の呼び出しにまとめる）
+    private final Map<String, Mono<String>> inFlightCalls = new ConcurrentHashMap<>();
+    private final Map<String, Flux<String>> inFlightStreams = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+
+    public GeminiAIService(GeminiCallLimiter callLimiter, MeterRegistry meterRegistry,
+                           @Value("${gemini.api.connect-timeout:5s}") Duration connectTimeout,
+                           @Value("${gemini.api.read-timeout:30s}") Duration readTimeout) {
+        this.callLimiter = callLimiter;
+        this.meterRegistry = meterRegistry;
+        FunctionCounter.builder("gemini.coalesced.calls", coalescedCalls, AtomicLong::get)
+            .description("実行中の同じ呼び出しにまとめた Gemini API 呼び出し数")
+            .register(meterRegistry);
 
-    public GeminiAIService() {
         // プロキシ設定（大学環境などに対応）
         HttpClient httpClient;
         String httpProxy = System.getProperty("http.proxyHost");
@@ -50,33 +85,68 @@ public class GeminiAIService {
             httpClient = HttpClient.create();
         }
 
+        // 接続・応答のタイムアウト（AIの応答が遅くても待ち続けないようにする）
+        httpClient = httpClient
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .responseTimeout(readTimeout);
+
         this.webClient = WebClient.builder()
             .clientConnector(new ReactorClientHttpConnector(httpClient))
             .build();
         this.objectMapper = new ObjectMapper();
     }
 
-    public Recipe generateRecipeFromIngredients(List<String> ingredients) {
+    /**
+     * 食材からレシピを生成する
+     * AIの応答を待つ間リクエスト処理スレッドを占有しないよう、結果は Mono で返す
+     */
+    public Mono<Recipe> generateRecipeFromIngredients(List<String> ingredients) {
         log.info("=== Gemini API 呼び出し開始 ===");
         
         // ▼▼▼ 修正: ダミーレシピではなく例外を投げる ▼▼▼
         if (apiKey == null || apiKey.isEmpty()) {
             log.error("APIキーが設定されていません");
-            throw new RuntimeException("AIサービスの準備ができていません（APIキー未設定）");
+            return Mono.error(new RuntimeException("AIサービスの準備ができていません（APIキー未設定）"));
         }
 
-        try {
-            String prompt = createPrompt(ingredients);
-            // Thread.sleep(1000); // 必要に応じてコメントアウト解除（レート制限対策）
+        String prompt = createPrompt(ingredients);
 
-            String response = callGeminiAPI(prompt);
-            return parseRecipeFromResponse(response);
-            
-        } catch (Exception e) {
-            log.error("Gemini API呼び出しエラー", e);
-            // ▼▼▼ 修正: ここでも例外を投げる ▼▼▼
-            throw new RuntimeException("レシピの生成に失敗しました: " + e.getMessage());
+        return callGeminiAPI(prompt)
+            .map(this::parseRecipeFromResponse)
+            .onErrorMap(e -> !(e instanceof GeminiBusyException), e -> {
+                log.error("Gemini API呼び出しエラー", e);
+                // ▼▼▼ 修正: ここでも例外を投げる ▼▼▼
+                return new RuntimeException("レシピの生成に失敗しました: " + e.getMessage(), e);
+            });
+    }
+
+    /**
+     * 食材からレシピを生成し、AIの応答が届くたびに途中までの解析結果を流す
+     * 最後の要素が完成したレシピになる
+     */
+    public Flux<Recipe> streamRecipeFromIngredients(List<String> ingredients) {
+        log.info("=== Gemini API ストリーミング呼び出し開始 ===");
+
+        if (apiKey == null || apiKey.isEmpty()) {
+            log.error("APIキーが設定されていません");
+            return Flux.error(new RuntimeException("AIサービスの準備ができていません（APIキー未設定）"));
         }
+
+        String prompt = createPrompt(ingredients);
+
+        return Flux.defer(() -> {
+            RecipeTextParser parser = new RecipeTextParser();
+            return streamGeminiAPI(prompt)
+                .map(text -> {
+                    parser.feed(text);
+                    return parser.snapshot();
+                })
+                // 最後の行は改行で終わらないことがあるため、完了時にもう一度解析結果を流す
+                .concatWith(Mono.fromSupplier(() -> countIfEmpty(MODE_STREAM, parser.finish())));
+        }).onErrorMap(e -> !(e instanceof GeminiBusyException), e -> {
+            log.error("Gemini API呼び出しエラー", e);
+            return new RuntimeException("レシピの生成に失敗しました: " + e.getMessage(), e);
+        });
     }
 
     private String createPrompt(List<String> ingredients) {
@@ -94,8 +164,8 @@ public class GeminiAIService {
             """.formatted(ingredientList);
     }
 
-    private String callGeminiAPI(String prompt) {
-        Map<String, Object> requestBody = Map.of(
+    private Map<String, Object> createRequestBody(String prompt) {
+        return Map.of(
             "contents", List.of(
                 Map.of("parts", List.of(Map.of("text", prompt)))
             ),
@@ -106,15 +176,69 @@ public class GeminiAIService {
                 "maxOutputTokens", 2048
             )
         );
+    }
 
-        Mono<String> responseMono = webClient.post()
-            .uri(apiUrl + "?key=" + apiKey)
-            .header("Content-Type", "application/json")
-            .bodyValue(requestBody)
-            .retrieve()
-            .bodyToMono(String.class);
+    /**
+     * Gemini APIを呼び出す
+     * 同じプロンプトの呼び出しが実行中ならその結果を共有し、新しく呼び出す場合は呼び出し数の制限を受ける
+     */
+    private Mono<String> callGeminiAPI(String prompt) {
+        return Mono.defer(() -> {
+            Mono<String> existing = inFlightCalls.get(prompt);
+            if (existing != null) {
+                coalescedCalls.incrementAndGet();
+                return existing;
+            }
+            return inFlightCalls.computeIfAbsent(prompt, key -> timed(MODE_GENERATE, callLimiter.limit(
+                    webClient.post()
+                        .uri(apiUrl + "?key=" + apiKey)
+                        .header("Content-Type", "application/json")
+                        .bodyValue(createRequestBody(key))
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        // 空の応答も解析エラーとして扱う
+                        .defaultIfEmpty("")
+                        .flux()))
+                .next()
+                .doFinally(signal -> inFlightCalls.remove(key))
+                .cache());
+        });
+    }
 
-        return responseMono.block();
+    /**
+     * Gemini APIをストリーミングで呼び出し、生成されたテキストを届いた分ずつ流す
+     * 同じプロンプトの呼び出しが実行中なら、それまでに届いた分も含めて共有する
+     */
+    private Flux<String> streamGeminiAPI(String prompt) {
+        return Flux.defer(() -> {
+            Flux<String> existing = inFlightStreams.get(prompt);
+            if (existing != null) {
+                coalescedCalls.incrementAndGet();
+                return existing;
+            }
+            // 使用トークン数は各イベントに累計で入っているため、最後に届いたものを記録する
+            AtomicReference<JsonNode> lastUsage = new AtomicReference<>();
+            return inFlightStreams.computeIfAbsent(prompt, key -> timed(MODE_STREAM, callLimiter.limit(
+                    webClient.post()
+                        .uri(streamApiUrl + "?alt=sse&key=" + apiKey)
+                        .header("Content-Type", "application/json")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .bodyValue(createRequestBody(key))
+                        .retrieve()
+                        .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                        .mapNotNull(ServerSentEvent::data)
+                        .map(this::readChunk)
+                        .doOnNext(chunk -> {
+                            if (chunk.has("usageMetadata")) {
+                                lastUsage.set(chunk.get("usageMetadata"));
+                            }
+                        })
+                        .map(this::extractText)
+                        .filter(text -> !text.isEmpty())
+                        .doOnComplete(() -> recordTokenUsage(MODE_STREAM, lastUsage.get()))))
+                .doFinally(signal -> inFlightStreams.remove(key))
+                .cache());
+        });
     }
 
     private Recipe parseRecipeFromResponse(String response) {
@@ -124,6 +248,7 @@ public class GeminiAIService {
             }
 
             JsonNode rootNode = objectMapper.readTree(response);
+            recordTokenUsage(MODE_GENERATE, rootNode.get("usageMetadata"));
             JsonNode candidatesNode = rootNode.get("candidates");
 
             if (candidatesNode != null && candidatesNode.isArray() && candidatesNode.size() > 0) {
@@ -132,50 +257,95 @@ public class GeminiAIService {
 
                 if (partsNode != null && partsNode.isArray() && partsNode.size() > 0) {
                     String text = partsNode.get(0).get("text").asText();
-                    return parseRecipeText(text);
+                    return countIfEmpty(MODE_GENERATE, parseRecipeText(text));
                 }
             }
             throw new RuntimeException("AIからの応答の解析に失敗しました（形式エラー）");
 
         } catch (Exception e) {
             log.error("レスポンス解析エラー", e);
+            parseFailureCounter(MODE_GENERATE, "format").increment();
             throw new RuntimeException("レシピデータの読み取りに失敗しました");
         }
     }
 
-    private Recipe parseRecipeText(String text) {
-        String[] lines = text.split("\n");
-        String title = "提案レシピ";
-        String ingredients = "";
-        String instructions = "";
-        String cookingTime = "不明";
-        String difficulty = "普通";
-
-        for (String line : lines) {
-            line = line.trim();
-            // マークダウンの太字除去などのクリーニングを行っても良い
-            line = line.replace("**", ""); 
-
-            if (line.startsWith("料理名:") || line.startsWith("タイトル:")) {
-                title = line.substring(line.indexOf(":") + 1).trim();
-            } else if (line.startsWith("材料:") || line.startsWith("食材:")) {
-                ingredients = line.substring(line.indexOf(":") + 1).trim();
-            } else if (line.startsWith("作り方:") || line.startsWith("手順:")) {
-                instructions = line.substring(line.indexOf(":") + 1).trim();
-            } else if (line.startsWith("調理時間:")) {
-                cookingTime = line.substring(line.indexOf(":") + 1).trim();
-            } else if (line.startsWith("難易度:")) {
-                difficulty = line.substring(line.indexOf(":") + 1).trim();
-            } else if (line.matches("^\\d+\\..*") || line.startsWith("- ")) {
-                if (!instructions.isEmpty()) instructions += "\n";
-                instructions += line;
-            } else if (!line.isEmpty() && !line.contains(":")) {
-                // 行頭にラベルがない場合、前の項目の続きとみなす簡易ロジック
-                if (!ingredients.isEmpty() && instructions.isEmpty()) {
-                     ingredients += "\n" + line;
-                }
-            }
+    /**
+     * ストリーミング応答の1イベント分を読み込む
+     */
+    private JsonNode readChunk(String chunk) {
+        try {
+            return objectMapper.readTree(chunk);
+        } catch (Exception e) {
+            parseFailureCounter(MODE_STREAM, "format").increment();
+            throw new RuntimeException("AIからの応答の解析に失敗しました（形式エラー）", e);
+        }
+    }
+
+    /**
+     * ストリーミング応答の1イベント分から、生成されたテキストを取り出す
+     */
+    private String extractText(JsonNode chunk) {
+        JsonNode partsNode = chunk.path("candidates").path(0).path("content").path("parts");
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : partsNode) {
+            text.append(part.path("text").asText(""));
         }
-        return new Recipe(title, ingredients, instructions, cookingTime, difficulty);
+        return text.toString();
+    }
+
+    /**
+     * 呼び出し（待ち行列での待ち時間を含む）の所要時間を、結果（success / error / busy）別に記録する
+     */
+    private <T> Flux<T> timed(String mode, Flux<T> call) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return call
+                .doOnComplete(() -> sample.stop(requestTimer(mode, "success")))
+                .doOnError(e -> sample.stop(requestTimer(mode, e instanceof GeminiBusyException ? "busy" : "error")));
+        });
+    }
+
+    private Timer requestTimer(String mode, String outcome) {
+        return Timer.builder("gemini.requests")
+            .description("Gemini API の呼び出し時間")
+            .tag("mode", mode)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private void recordTokenUsage(String mode, JsonNode usage) {
+        if (usage == null) {
+            return;
+        }
+        tokenCounter(mode, "prompt").increment(usage.path("promptTokenCount").asDouble(0));
+        tokenCounter(mode, "candidates").increment(usage.path("candidatesTokenCount").asDouble(0));
+    }
+
+    private Counter tokenCounter(String mode, String type) {
+        return Counter.builder("gemini.tokens")
+            .description("Gemini API の使用トークン数")
+            .tag("mode", mode)
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+
+    // 料理名以外が何も読み取れなかった応答も解析失敗として数える
+    private Recipe countIfEmpty(String mode, Recipe recipe) {
+        if (recipe.getIngredients().isBlank() && recipe.getInstructions().isBlank()) {
+            parseFailureCounter(mode, "empty").increment();
+        }
+        return recipe;
+    }
+
+    private Counter parseFailureCounter(String mode, String reason) {
+        return Counter.builder("recipe.parse.failures")
+            .description("AIの応答からレシピを読み取れなかった回数")
+            .tag("mode", mode)
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    private Recipe parseRecipeText(String text) {
+        return RecipeTextParser.parse(text);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package com.example.foodmanager.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Gemini APIの呼び出しが混み合っていて、待ち行列にも入れられなかったときの例外
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class GeminiBusyException extends RuntimeException {
+    public GeminiBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.foodmanager.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gemini APIの呼び出し数を制限する
+ *  - 同時に実行する呼び出しは max-concurrent 件まで（バルクヘッド）
+ *  - 呼び出しの開始は1秒あたり rate-per-second 件まで、最大 burst 件まで連続可（トークンバケット）
+ *  - すぐに実行できない呼び出しは max-queue 件まで待たせ、それを超えたら即座に断る
+ */
+@Component
+@Slf4j
+public class GeminiCallLimiter {
+
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final Duration queueTimeout;
+    private final double ratePerSecond;
+    private final double burst;
+
+    // 以下は this で同期して扱う
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+    private int active = 0;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private boolean drainScheduled = false;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public GeminiCallLimiter(@Value("${gemini.limiter.max-concurrent:10}") int maxConcurrent,
+                             @Value("${gemini.limiter.max-queue:50}") int maxQueue,
+                             @Value("${gemini.limiter.queue-timeout:10s}") Duration queueTimeout,
+                             @Value("${gemini.limiter.rate-per-second:5}") double ratePerSecond,
+                             @Value("${gemini.limiter.burst:10}") double burst,
+                             MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.queueTimeout = queueTimeout;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+
+        Gauge.builder("gemini.limiter.active", this, GeminiCallLimiter::getActiveCount)
+            .description("実行中の Gemini API 呼び出し数")
+            .register(meterRegistry);
+        Gauge.builder("gemini.limiter.queued", this, GeminiCallLimiter::getQueuedCount)
+            .description("開始を待っている Gemini API 呼び出し数")
+            .register(meterRegistry);
+        FunctionCounter.builder("gemini.limiter.rejected", rejected, AtomicLong::get)
+            .description("混雑のため断った Gemini API 呼び出し数")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 呼び出しを制限の範囲内で実行する（空きがなければ待ち行列で順番を待つ）
+     */
+    public <T> Flux<T> limit(Flux<T> call) {
+        return Flux.defer(() -> {
+            Waiter waiter = new Waiter();
+            if (!enqueue(waiter)) {
+                rejected.incrementAndGet();
+                log.warn("Gemini APIの呼び出しが混み合っているため断りました（待ち: {}件）", maxQueue);
+                return Flux.error(new GeminiBusyException("AIサービスが混み合っています。しばらくしてから再度お試しください。"));
+            }
+
+            return waiter.permit.asMono()
+                .timeout(queueTimeout, Mono.defer(() -> {
+                    rejected.incrementAndGet();
+                    return Mono.error(
+                        new GeminiBusyException("AIサービスが混み合っています。しばらくしてから再度お試しください。"));
+                }))
+                .thenMany(call)
+                .doFinally(signal -> {
+                    if (waiter.granted.get()) {
+                        release();
+                    } else {
+                        cancel(waiter);
+                    }
+                });
+        });
+    }
+
+    private boolean enqueue(Waiter waiter) {
+        synchronized (this) {
+            if (waiting.size() >= maxQueue) {
+                return false;
+            }
+            waiting.addLast(waiter);
+        }
+        drain();
+        return true;
+    }
+
+    private void release() {
+        synchronized (this) {
+            active--;
+        }
+        drain();
+    }
+
+    private void cancel(Waiter waiter) {
+        synchronized (this) {
+            // 許可を出す直前に取り消された場合は、枠を返す
+            if (!waiting.remove(waiter) && waiter.granted.get()) {
+                active--;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * 空き枠とトークンがある限り、待っている呼び出しを順に開始する
+     */
+    private void drain() {
+        List<Waiter> toStart = new ArrayList<>();
+        long waitNanos = 0;
+        synchronized (this) {
+            refill();
+            while (!waiting.isEmpty() && active < maxConcurrent) {
+                if (tokens < 1) {
+                    waitNanos = (long) ((1 - tokens) / ratePerSecond * 1_000_000_000L);
+                    break;
+                }
+                tokens -= 1;
+                active++;
+                Waiter waiter = waiting.pollFirst();
+                waiter.granted.set(true);
+                toStart.add(waiter);
+            }
+            if (waitNanos > 0 && !drainScheduled) {
+                // トークンが貯まる頃にもう一度試す
+                drainScheduled = true;
+                Schedulers.parallel().schedule(() -> {
+                    synchronized (this) {
+                        drainScheduled = false;
+                    }
+                    drain();
+                }, Math.max(waitNanos, 1_000_000L), TimeUnit.NANOSECONDS);
+            }
+        }
+        // 呼び出しの開始はロックの外で行う
+        toStart.forEach(waiter -> waiter.permit.tryEmitEmpty());
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * ratePerSecond);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * 実行中の呼び出し数
+     */
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    /**
+     * 開始を待っている呼び出し数
+     */
+    public synchronized int getQueuedCount() {
+        return waiting.size();
+    }
+
+    private static class Waiter {
+        private final Sinks.Empty<Void> permit = Sinks.empty();
+        private final AtomicBoolean granted = new AtomicBoolean(false);
+    }
+}
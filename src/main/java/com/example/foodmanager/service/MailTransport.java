@@ -0,0 +1,30 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.EmailOutbox;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 送信待ちメールを実際に送る手段（app.mail.transport で brevo / smtp を選ぶ）
+ * EmailOutboxDispatcher が送信スレッドから、本文の種類が同じメールを batch-size 件ずつ渡す
+ */
+public interface MailTransport {
+
+    /**
+     * メトリクスのタグやログに出す名前
+     */
+    String name();
+
+    /**
+     * 送信に必要な設定が揃っているか（揃っていなければ送信待ちのまま保留する）
+     */
+    boolean isReady();
+
+    /**
+     * メールをまとめて送る
+     * 一部だけ送れなかった場合は、そのメールと理由を返す（すべて送れたら空）。
+     * まとめて送れなかった場合は例外を投げる。
+     */
+    Map<EmailOutbox, Exception> send(List<EmailOutbox> mails) throws Exception;
+}
@@ -1,11 +1,15 @@
 package com.example.foodmanager.service;
 
 import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 /**
  * 開発・テスト用のメールサービス
@@ -16,6 +20,19 @@ import java.time.format.DateTimeFormatter;
 @ConditionalOnProperty(name = "app.notification.enabled", havingValue = "false", matchIfMissing = true)
 public class MockEmailService {
 
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy年MM月dd日");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH:mm");
+
+    private final Counter sentCounter;
+
+    public MockEmailService(MeterRegistry meterRegistry) {
+        this.sentCounter = Counter.builder("mail.messages")
+            .description("送信したメールの件数（結果別）")
+            .tag("provider", "mock")
+            .tag("outcome", "sent")
+            .register(meterRegistry);
+    }
+
     public void sendExpirationNotification(Food food) {
         log.info("=== モックメール送信 ===");
         log.info("宛先: {}", food.getUser().getEmail());
@@ -31,12 +48,34 @@ public class MockEmailService {
             "食品管理システム",
             food.getUser().getUsername(),
             food.getName(),
-            food.getExpirationDate().format(DateTimeFormatter.ofPattern("yyyy年MM月dd日")),
-            food.getRegisteredAt().format(DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH:mm"))
+            DATE.format(food.getExpirationDate()),
+            DATE_TIME.format(food.getRegisteredAt())
         );
         
         log.info("本文:\n{}", messageText);
         log.info("=== メール送信完了（モック） ===");
+        sentCounter.increment();
+    }
+
+    public void sendExpirationDigest(User user, List<Food> foods) {
+        log.info("=== モックメール送信（まとめて通知） ===");
+        log.info("宛先: {}", user.getEmail());
+        log.info("件名: 消費期限のお知らせ - {}件の食品", foods.size());
+
+        StringBuilder messageText = new StringBuilder()
+            .append("こんにちは、").append(user.getUsername()).append("さん\n\n")
+            .append("以下の食品の消費期限が近づいています。\n\n");
+        for (Food food : foods) {
+            messageText.append("■ ").append(food.getName())
+                .append("（消費期限: ")
+                .append(DATE.format(food.getExpirationDate()))
+                .append("）\n");
+        }
+        messageText.append("\n食品管理システム");
+
+        log.info("本文:\n{}", messageText);
+        log.info("=== メール送信完了（モック） ===");
+        sentCounter.increment();
     }
 
     public void sendImmediateExpirationNotification(Food food) {
@@ -54,11 +93,12 @@ public class MockEmailService {
             "食品管理システム",
             food.getUser().getUsername(),
             food.getName(),
-            food.getExpirationDate().format(DateTimeFormatter.ofPattern("yyyy年MM月dd日")),
-            food.getRegisteredAt().format(DateTimeFormatter.ofPattern("yyyy年MM月dd日 HH:mm"))
+            DATE.format(food.getExpirationDate()),
+            DATE_TIME.format(food.getRegisteredAt())
         );
         
         log.info("本文:\n{}", messageText);
         log.info("=== 緊急メール送信完了（モック） ===");
+        sentCounter.increment();
     }
 }
\ No newline at end of file
@@ -4,84 +4,232 @@ import com.example.foodmanager.model.Food;
 import com.example.foodmanager.model.User;
 import com.example.foodmanager.repository.FoodRepository;
 import com.example.foodmanager.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * 消費期限の定期通知
+ * ユーザーごとに次の通知日時（next_notify_at）を持たせ、毎分その日時を過ぎたユーザーだけをまとめて取り出して送る。
+ * 送ったユーザーは同じトランザクションで次の通知日時を翌日に進めるため、停止中に過ぎた分も再開後に送られる。
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationSchedulerService {
 
-    private final FoodRepository foodRepository;
-    private final UserRepository userRepository; // 追加
+    // 1回のトランザクションで通知するユーザー数
+    private static final int BATCH_SIZE = 100;
+
+    // 担当（リース）の記録に使う処理名
+    public static final String JOB_NAME = "expiration-notification";
+    // 担当の記録を残す期間（毎分の実行枠ごとに記録されるので短めにする）
+    private static final Duration LEASE_RETENTION = Duration.ofHours(1);
 
-    @Autowired(required = false)
-    private EmailService emailService;
+    private final FoodRepository foodRepository;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final SchedulerLeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExpirationNotificationService notificationService;
+    private final EntityManagerFactory entityManagerFactory;
 
-    @Autowired(required = false)
-    private MockEmailService mockEmailService;
+    // ユーザーを何個に分けて担当を取り合うか（全ノードで同じ値にする）
+    @Value("${app.notification.partitions:8}")
+    private int partitions;
 
-    @Value("${app.notification.enabled:false}")
-    private boolean notificationEnabled;
+    // 停止などで送れなかった通知を、どこまでさかのぼって送るか（これより古い分は送らずに次の日時へ進める）
+    @Value("${app.notification.catch-up:1d}")
+    private Duration catchUp;
 
-    // ▼▼▼ 変更: 毎日9時ではなく、30分ごとに実行 (毎時0分と30分) ▼▼▼
-    @Scheduled(cron = "0 0/30 * * * *")
-    @Transactional
+    // 毎分、通知日時を過ぎたユーザーを確認する（設定した時刻が何分でも、その分のうちに送られる）
+    @Scheduled(cron = "0 * * * * *")
     public void checkAndSendNotifications() {
         // 現在時刻を「分」までで切り捨てて取得（秒は00にする）
-        LocalTime now = LocalTime.now().truncatedTo(ChronoUnit.MINUTES);
-        log.info("定期通知チェック開始: 時刻 {}", now);
-
-        // 1. 今この時間に通知を希望しているユーザーを探す
-        List<User> targetUsers = userRepository.findByNotificationTime(now);
-        
-        if (targetUsers.isEmpty()) {
-            return; // 対象ユーザーがいなければ終了
+        LocalDateTime slot = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        scheduleUnscheduledUsers(slot);
+        processSlot(slot);
+        leaseService.deleteBefore(JOB_NAME, slot.minus(LEASE_RETENTION));
+    }
+
+    /**
+     * 指定した実行枠（日時）までに通知日時を迎えたユーザーに通知を送る
+     * ユーザーを partitions 個に分け、担当を取れた分だけを処理する（他のノードが取った分は任せる）
+     */
+    public void processSlot(LocalDateTime slot) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        // 各ノードが同じ順番で取り合わないよう、分割番号の開始位置をずらす
+        int offset = ThreadLocalRandom.current().nextInt(partitions);
+        int claimed = 0;
+        for (int i = 0; i < partitions; i++) {
+            int partition = (offset + i) % partitions;
+            if (leaseService.tryAcquire(JOB_NAME, slot, partition)) {
+                claimed++;
+                processPartition(slot, partition);
+            }
         }
 
-        log.info("通知対象ユーザー数: {}", targetUsers.size());
+        sample.stop(meterRegistry.timer("notification.scheduler.run"));
+        meterRegistry.counter("notification.partitions.claimed").increment(claimed);
+    }
 
-        for (User user : targetUsers) {
-            try {
-                // 2. そのユーザーの設定（何日前？）に合わせてターゲット日を計算
-                // 例: 今日が12/1で「3日前通知」なら、期限が12/4の食品を探す
-                LocalDate targetExpirationDate = LocalDate.now().plusDays(user.getNotificationDaysBefore());
-
-                // 3. そのユーザーの、その日が期限の食品を取得
-                List<Food> foodsToExpire = foodRepository.findByUserAndExpirationDate(user, targetExpirationDate);
-
-                if (!foodsToExpire.isEmpty()) {
-                    for (Food food : foodsToExpire) {
-                        sendNotification(food);
-                    }
-                    log.info("ユーザー {} に {} 件の通知を送りました", user.getUsername(), foodsToExpire.size());
-                }
-            } catch (Exception e) {
-                log.error("ユーザー {} の通知処理中にエラー", user.getUsername(), e);
+    // 次の通知日時がまだないユーザー（next_notify_at 列の追加前からいるユーザー）に設定する
+    private void scheduleUnscheduledUsers(LocalDateTime now) {
+        int count;
+        do {
+            count = transactionTemplate.execute(status -> {
+                List<User> users = userRepository.findByNextNotifyAtIsNull(Limit.of(BATCH_SIZE));
+                users.forEach(user -> user.scheduleNextNotification(now));
+                return users.size();
+            });
+        } while (count == BATCH_SIZE);
+    }
+
+    /**
+     * 1つの分割分を、通知日時を迎えたユーザーがいなくなるまで BATCH_SIZE 人ずつ処理する
+     * 失敗したバッチはロールバックし、そのバッチのユーザーを1人ずつ送り直す（sendNextBatch）
+     */
+    private void processPartition(LocalDateTime slot, int partition) {
+        try {
+            int userCount = 0;
+            int batch;
+            while ((batch = sendNextBatch(slot, partition)) > 0) {
+                userCount += batch;
             }
+            transactionTemplate.executeWithoutResult(status -> leaseService.complete(JOB_NAME, slot, partition));
+            if (userCount > 0) {
+                log.info("通知対象ユーザー数: {}（分割 {}）", userCount, partition);
+            }
+        } catch (RuntimeException e) {
+            log.error("通知処理に失敗しました: 枠 {}, 分割 {}", slot, partition, e);
+            // 担当を持ったままだと、期限が切れるまで次の実行枠でもこの分割を処理できない
+            leaseService.release(JOB_NAME, slot, partition);
         }
     }
 
-    private void sendNotification(Food food) {
+    /**
+     * 通知日時を迎えたユーザーを最大 BATCH_SIZE 人、1つのトランザクションで通知する
+     * 失敗した場合は同じユーザーを1人ずつ別のトランザクションで送り直し、それでも失敗したユーザーは
+     * この回の通知を諦めて次の通知日時へ進める（1人の失敗で、古い順に並んだ後ろのユーザーが止まらないようにする）
+     * 取り出したユーザー数を返す（0なら残りなし）
+     */
+    private int sendNextBatch(LocalDateTime slot, int partition) {
         try {
-            if (notificationEnabled && emailService != null) {
-                emailService.sendExpirationNotification(food);
-            } else if (mockEmailService != null) {
-                mockEmailService.sendExpirationNotification(food);
+            return transactionTemplate.execute(status -> sendDueBatch(slot, findDueUsers(slot, partition)));
+        } catch (RuntimeException e) {
+            log.warn("通知のバッチ処理に失敗したため、1人ずつ送り直します: 枠 {}, 分割 {}", slot, partition, e);
+        }
+        List<User> due = transactionTemplate.execute(status -> findDueUsers(slot, partition));
+        for (User user : due) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    sendDueBatch(slot, userRepository.findAllById(List.of(user.getId()))));
+            } catch (RuntimeException e) {
+                skipFailedUser(user, slot, e);
+            }
+        }
+        return due.size();
+    }
+
+    private List<User> findDueUsers(LocalDateTime slot, int partition) {
+        return userRepository.findDueForNotification(slot, partitions, partition, Limit.of(BATCH_SIZE));
+    }
+
+    // 1人でも送れなかったユーザーは、今回の通知日時を飛ばして次の通知日時へ進める
+    // （他のノードが先に通知日時を変えていれば何もしない）
+    private void skipFailedUser(User user, LocalDateTime slot, RuntimeException error) {
+        LocalDateTime next = user.nextNotificationAfter(slot);
+        log.error("ユーザー {} の通知に失敗したため、{} の通知は送らずに次回 {} へ進めます",
+            user.getId(), user.getNextNotifyAt(), next, error);
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.rescheduleNextNotifyAt(user.getId(), user.getNextNotifyAt(), next);
+            evictAfterCommit(List.of(user.getId()));
+        });
+        meterRegistry.counter("notification.users.skipped").increment();
+    }
+
+    /**
+     * 通知日時を迎えたユーザーに通知し、次の通知日時を翌日に進める
+     * 渡されたユーザー数を返す
+     */
+    private int sendDueBatch(LocalDateTime slot, List<User> due) {
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        // さかのぼる期間より前の通知日時は、送らずにその期間内の最初の日時へ進める
+        LocalDateTime oldest = slot.minus(catchUp);
+        List<User> users = new ArrayList<>(due.size());
+        for (User user : due) {
+            if (user.getNextNotifyAt().isBefore(oldest)) {
+                LocalDateTime next = user.nextNotificationAfter(oldest);
+                log.warn("ユーザー {} の {} の通知は古いため送りません（次回 {}）", user.getId(), user.getNextNotifyAt(), next);
+                userRepository.rescheduleNextNotifyAt(user.getId(), user.getNextNotifyAt(), next);
+                evictAfterCommit(List.of(user.getId()));
+            } else {
+                users.add(user);
+            }
+        }
+        if (users.isEmpty()) {
+            return due.size();
+        }
+
+        // 通知対象の食品を1本のクエリでまとめて取得し、ユーザーごとに分ける
+        // 例: 通知日時が12/1 9:00で「3日前通知」なら、期限が12/4の食品が対象
+        Map<User, List<Food>> foodsByUser = new LinkedHashMap<>();
+        for (Food food : foodRepository.findDueForNotification(users)) {
+            foodsByUser.computeIfAbsent(food.getUser(), user -> new ArrayList<>()).add(food);
+        }
+        int notifiedUsers = 0;
+        int notifiedFoods = 0;
+        for (Map.Entry<User, List<Food>> entry : foodsByUser.entrySet()) {
+            int sent = notificationService.notifyUser(entry.getKey(), entry.getValue());
+            if (sent > 0) {
+                notifiedUsers++;
+                notifiedFoods += sent;
             }
-        } catch (Exception e) {
-            log.error("メール送信失敗: {}", food.getName(), e);
         }
+
+        // 通知したユーザーの次の通知日時を進める。他のノードが先に進めていたら、このバッチの送信ごと取り消す
+        List<Long> ids = users.stream().map(User::getId).toList();
+        if (userRepository.advanceNextNotifyAt(ids, slot) != ids.size()) {
+            throw new IllegalStateException("他のノードが先に通知したユーザーが含まれています: " + ids);
+        }
+        evictAfterCommit(ids);
+
+        meterRegistry.counter("notification.users.processed").increment(notifiedUsers);
+        meterRegistry.counter("notification.foods.processed").increment(notifiedFoods);
+        return due.size();
+    }
+
+    // 通知日時を SQL で直接書き換えたユーザーの2次キャッシュを、コミット後に1件ずつ消す
+    // （コミット前に消すと、他のスレッドが古い値を読んでキャッシュに戻してしまう）
+    private void evictAfterCommit(Collection<Long> userIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userIds.forEach(id -> entityManagerFactory.getCache().evict(User.class, id));
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,224 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.CachedRecipe;
+import com.example.foodmanager.model.Recipe;
+import com.example.foodmanager.repository.CachedRecipeRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * レシピ生成結果のキャッシュ
+ * 食材の組み合わせ（順序・表記ゆれを正規化したもの）をキーに、AIの生成結果を再利用する。
+ *  1段目: メモリ上のキャッシュ（件数上限・有効期限つき、W-TinyLFU で追い出し）
+ *  2段目: DB（任意。再起動後もキャッシュを使えるようにする）
+ */
+@Service
+@Slf4j
+public class RecipeCacheService {
+
+    private final GeminiAIService geminiAIService;
+    private final CachedRecipeRepository cachedRecipeRepository;
+
+    private final boolean enabled;
+    private final boolean persistent;
+    private final Duration ttl;
+    private final AsyncCache<String, Recipe> cache;
+
+    // 2段目（DB）のヒット・ミス件数
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong persistentMisses = new AtomicLong();
+    // 2段目（DB）への保存に失敗した件数
+    private final AtomicLong persistentSaveFailures = new AtomicLong();
+
+    public RecipeCacheService(GeminiAIService geminiAIService,
+                              CachedRecipeRepository cachedRecipeRepository,
+                              @Value("${app.recipe-cache.enabled:true}") boolean enabled,
+                              @Value("${app.recipe-cache.maximum-size:1000}") long maximumSize,
+                              @Value("${app.recipe-cache.ttl:6h}") Duration ttl,
+                              @Value("${app.recipe-cache.persistent:false}") boolean persistent,
+                              MeterRegistry meterRegistry) {
+        this.geminiAIService = geminiAIService;
+        this.cachedRecipeRepository = cachedRecipeRepository;
+        this.enabled = enabled;
+        this.persistent = persistent;
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recipes");
+        FunctionCounter.builder("recipe.cache.persistent.requests", persistentHits, AtomicLong::get)
+            .description("DBのレシピキャッシュの参照回数")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        FunctionCounter.builder("recipe.cache.persistent.requests", persistentMisses, AtomicLong::get)
+            .description("DBのレシピキャッシュの参照回数")
+            .tag("result", "miss")
+            .register(meterRegistry);
+        FunctionCounter.builder("recipe.cache.persistent.save.failures", persistentSaveFailures, AtomicLong::get)
+            .description("DBのレシピキャッシュへの保存に失敗した回数")
+            .register(meterRegistry);
+    }
+
+    /**
+     * キャッシュにあればそれを返し、なければAIで生成してキャッシュに入れる
+     * 同じ食材の組み合わせで同時に呼ばれた場合、AIの呼び出しは1回にまとめられる
+     */
+    public Mono<Recipe> getOrGenerate(List<String> ingredients) {
+        if (!enabled) {
+            return geminiAIService.generateRecipeFromIngredients(ingredients);
+        }
+
+        String ingredientSet = normalize(ingredients);
+        // 生成に失敗した場合はキャッシュに残らない（次回は再度AIを呼ぶ）
+        // 1人がリクエストを中断しても、同じ結果を待っている他の人の生成は止めない
+        return Mono.fromFuture(() -> cache.get(ingredientSet,
+            (key, executor) -> loadOrGenerate(key, ingredients).toFuture()), true);
+    }
+
+    /**
+     * ストリーミング生成: キャッシュにあれば完成したレシピを1件だけ流し、
+     * なければAIの応答に合わせて途中経過を流して、最後の結果をキャッシュに入れる
+     */
+    public Flux<Recipe> stream(List<String> ingredients) {
+        if (!enabled) {
+            return geminiAIService.streamRecipeFromIngredients(ingredients);
+        }
+
+        String ingredientSet = normalize(ingredients);
+        CompletableFuture<Recipe> cached = cache.getIfPresent(ingredientSet);
+        if (cached != null) {
+            return Mono.fromFuture(cached, true).flux();
+        }
+
+        AtomicReference<Recipe> last = new AtomicReference<>();
+        return geminiAIService.streamRecipeFromIngredients(ingredients)
+            .doOnNext(last::set)
+            .doOnComplete(() -> {
+                Recipe recipe = last.get();
+                if (recipe == null) {
+                    return;
+                }
+                cache.put(ingredientSet, CompletableFuture.completedFuture(recipe));
+                if (persistent) {
+                    Mono.fromRunnable(() -> savePersistent(hash(ingredientSet), ingredientSet, recipe))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .subscribe();
+                }
+            });
+    }
+
+    private Mono<Recipe> loadOrGenerate(String ingredientSet, List<String> ingredients) {
+        if (!persistent) {
+            return geminiAIService.generateRecipeFromIngredients(ingredients);
+        }
+
+        String cacheKey = hash(ingredientSet);
+        // DBアクセスはブロッキングなので専用スレッドで行う
+        return Mono.fromCallable(() -> findPersistent(cacheKey))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(found -> found
+                .map(Mono::just)
+                .orElseGet(() -> geminiAIService.generateRecipeFromIngredients(ingredients)
+                    .flatMap(recipe -> Mono.fromRunnable(() -> savePersistent(cacheKey, ingredientSet, recipe))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(recipe))));
+    }
+
+    private Optional<Recipe> findPersistent(String cacheKey) {
+        Optional<Recipe> found = cachedRecipeRepository.findById(cacheKey)
+            .filter(cached -> cached.getCreatedAt().isAfter(LocalDateTime.now().minus(ttl)))
+            .map(CachedRecipe::toRecipe);
+        (found.isPresent() ? persistentHits : persistentMisses).incrementAndGet();
+        return found;
+    }
+
+    private void savePersistent(String cacheKey, String ingredientSet, Recipe recipe) {
+        try {
+            // 期限切れの行が残っていれば読み込んで書き換える（新しいエンティティのまま save すると merge になり、
+            // @PrePersist が呼ばれずに created_at が空で更新されてしまう）
+            CachedRecipe cached = cachedRecipeRepository.findById(cacheKey).orElseGet(CachedRecipe::new);
+            cached.setCacheKey(cacheKey);
+            cached.setIngredientSet(ingredientSet);
+            cached.setTitle(recipe.getTitle());
+            cached.setIngredients(recipe.getIngredients());
+            cached.setInstructions(recipe.getInstructions());
+            cached.setCookingTime(recipe.getCookingTime());
+            cached.setDifficulty(recipe.getDifficulty());
+            cached.setCreatedAt(LocalDateTime.now());
+            cachedRecipeRepository.save(cached);
+        } catch (Exception e) {
+            // キャッシュの保存に失敗してもレシピ自体は返す（失敗は件数として記録し、原因はログに残す）
+            persistentSaveFailures.incrementAndGet();
+            log.warn("レシピキャッシュの保存に失敗しました: cacheKey={}", cacheKey, e);
+        }
+    }
+
+    // 期限切れのDBキャッシュを1日1回削除する
+    @Scheduled(cron = "0 15 3 * * *")
+    @Transactional
+    public void purgeExpired() {
+        if (persistent) {
+            cachedRecipeRepository.deleteByCreatedAtBefore(LocalDateTime.now().minus(ttl));
+        }
+    }
+
+    /**
+     * 食材の組み合わせを正規化する（全角半角・大文字小文字・前後の空白・重複・順序の違いを吸収）
+     */
+    static String normalize(List<String> ingredients) {
+        TreeSet<String> normalized = new TreeSet<>();
+        for (String ingredient : ingredients) {
+            if (ingredient == null) {
+                continue;
+            }
+            String value = Normalizer.normalize(ingredient, Normalizer.Form.NFKC)
+                .strip()
+                .toLowerCase(Locale.ROOT);
+            if (!value.isEmpty()) {
+                normalized.add(value);
+            }
+        }
+        return String.join("、", normalized);
+    }
+
+    /**
+     * DBキャッシュのキー（正規化した食材の組み合わせの SHA-256）
+     */
+    static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.Recipe;
+
+/**
+ * AIが返したレシピのテキストを解析する
+ * テキストは少しずつ（ストリーミングで届いた分ずつ）渡してもよく、
+ * 行が揃うたびに解析を進め、途中経過を snapshot() で取り出せる。
+ *
+ * 届いたテキストは先頭から一度だけ読み、行ごとに「今どの項目を読んでいるか」の状態で振り分ける。
+ * 行の切り出しやマークダウンの除去のたびに文字列を作らないよう、作業用のバッファを使い回す。
+ */
+public class RecipeTextParser {
+
+    /**
+     * 行頭のラベル（「材料:」など）
+     */
+    private enum Label {
+        TITLE("料理名", "タイトル"),
+        INGREDIENTS("材料", "食材"),
+        INSTRUCTIONS("作り方", "手順"),
+        COOKING_TIME("調理時間"),
+        DIFFICULTY("難易度");
+
+        private final String[] names;
+
+        Label(String... names) {
+            this.names = names;
+        }
+    }
+
+    /**
+     * 見出しのない行をどの項目の続きとみなすか
+     */
+    private enum Section {
+        NONE, INGREDIENTS, INSTRUCTIONS
+    }
+
+    // values() は呼ぶたびに配列を複製するため、1つを使い回す
+    private static final Label[] LABELS = Label.values();
+
+    // 改行が届いていない行の途中（チャンクの境目をまたいだ分だけが入る）
+    private final StringBuilder pending = new StringBuilder();
+    // 太字の ** を取り除いた1行分の作業用バッファ
+    private final StringBuilder line = new StringBuilder();
+
+    private String title = "提案レシピ";
+    private final StringBuilder ingredients = new StringBuilder();
+    private final StringBuilder instructions = new StringBuilder();
+    private String cookingTime = "不明";
+    private String difficulty = "普通";
+
+    private Section section = Section.NONE;
+    // processLine で見つけたラベルの、値の開始位置
+    private int valueStart;
+
+    /**
+     * テキスト全体を一度に解析する
+     */
+    public static Recipe parse(CharSequence text) {
+        RecipeTextParser parser = new RecipeTextParser();
+        parser.feed(text);
+        return parser.finish();
+    }
+
+    /**
+     * 届いたテキストを追加し、改行まで揃った行を解析する
+     */
+    public void feed(CharSequence chunk) {
+        int start = 0;
+        for (int i = 0; i < chunk.length(); i++) {
+            if (chunk.charAt(i) != '\n') {
+                continue;
+            }
+            if (pending.length() > 0) {
+                // 前のチャンクから続いている行
+                pending.append(chunk, start, i);
+                processLine(pending, 0, pending.length());
+                pending.setLength(0);
+            } else {
+                processLine(chunk, start, i);
+            }
+            start = i + 1;
+        }
+        pending.append(chunk, start, chunk.length());
+    }
+
+    /**
+     * 残りの行を解析して最終結果を返す
+     */
+    public Recipe finish() {
+        if (pending.length() > 0) {
+            processLine(pending, 0, pending.length());
+            pending.setLength(0);
+        }
+        return snapshot();
+    }
+
+    /**
+     * ここまでに解析できた内容
+     */
+    public Recipe snapshot() {
+        return new Recipe(title, ingredients.toString(), instructions.toString(), cookingTime, difficulty);
+    }
+
+    private void processLine(CharSequence text, int from, int to) {
+        // マークダウンの太字（**）を除去して作業用バッファに写す
+        line.setLength(0);
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '*' && i + 1 < to && text.charAt(i + 1) == '*') {
+                i++;
+            } else {
+                line.append(c);
+            }
+        }
+        int begin = skipSpaces(line, 0, line.length());
+        int end = trimEnd(line, begin, line.length());
+        if (begin == end) {
+            return;
+        }
+
+        Label label = findLabel(begin, end);
+        if (label != null) {
+            applyLabel(label, end);
+        } else if (section == Section.INGREDIENTS && !isNumbered(begin, end)) {
+            // 材料の見出しの後は、次の見出しまで箇条書きも「塩: 少々」のような行も材料として扱う
+            appendLine(ingredients, begin, end);
+        } else if (isNumbered(begin, end) || isBullet(begin, end)) {
+            // 番号付きの行は手順（材料の見出しの後でも、番号が付いたら手順が始まったとみなす）
+            section = Section.INSTRUCTIONS;
+            appendLine(instructions, begin, end);
+        } else if (section == Section.INSTRUCTIONS && indexOfColon(begin, end) >= 0) {
+            // 「ポイント: ...」など知らない見出しが出てきたら、手順はそこで終わりとみなす
+            section = Section.NONE;
+        } else if (section == Section.INSTRUCTIONS) {
+            // 作り方の見出しの後は、番号のない行も手順の続きとして扱う
+            appendLine(instructions, begin, end);
+        }
+    }
+
+    private void applyLabel(Label label, int end) {
+        int from = skipSpaces(line, valueStart, end);
+        switch (label) {
+            case TITLE -> {
+                title = line.substring(from, end);
+                section = Section.NONE;
+            }
+            case INGREDIENTS -> {
+                ingredients.setLength(0);
+                ingredients.append(line, from, end);
+                section = Section.INGREDIENTS;
+            }
+            case INSTRUCTIONS -> {
+                instructions.setLength(0);
+                instructions.append(line, from, end);
+                section = Section.INSTRUCTIONS;
+            }
+            case COOKING_TIME -> {
+                cookingTime = line.substring(from, end);
+                section = Section.NONE;
+            }
+            case DIFFICULTY -> {
+                difficulty = line.substring(from, end);
+                section = Section.NONE;
+            }
+        }
+    }
+
+    /**
+     * 行頭がラベル＋コロン（半角・全角）なら、そのラベルを返して valueStart に値の開始位置を入れる
+     */
+    private Label findLabel(int begin, int end) {
+        for (Label label : LABELS) {
+            for (String name : label.names) {
+                if (!startsWith(begin, end, name)) {
+                    continue;
+                }
+                int colon = skipSpaces(line, begin + name.length(), end);
+                if (colon < end && isColon(line.charAt(colon))) {
+                    valueStart = colon + 1;
+                    return label;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean startsWith(int begin, int end, String prefix) {
+        if (end - begin < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line.charAt(begin + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 「1.」「12.」のように数字とピリオドで始まる行
+    private boolean isNumbered(int begin, int end) {
+        int i = begin;
+        while (i < end && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+            i++;
+        }
+        return i > begin && i < end && line.charAt(i) == '.';
+    }
+
+    // 「- 」「・」で始まる箇条書きの行
+    private boolean isBullet(int begin, int end) {
+        char first = line.charAt(begin);
+        return first == '・' || (first == '-' && begin + 1 < end && line.charAt(begin + 1) == ' ');
+    }
+
+    private int indexOfColon(int begin, int end) {
+        for (int i = begin; i < end; i++) {
+            if (isColon(line.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void appendLine(StringBuilder target, int begin, int end) {
+        if (target.length() > 0) {
+            target.append('\n');
+        }
+        target.append(line, begin, end);
+    }
+
+    private static boolean isColon(char c) {
+        return c == ':' || c == '：';
+    }
+
+    private static boolean isSpace(char c) {
+        return c <= ' ' || c == '　';
+    }
+
+    private static int skipSpaces(CharSequence s, int from, int to) {
+        while (from < to && isSpace(s.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(CharSequence s, int from, int to) {
+        while (to > from && isSpace(s.charAt(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+}
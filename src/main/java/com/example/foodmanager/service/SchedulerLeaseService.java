@@ -0,0 +1,116 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.SchedulerLease;
+import com.example.foodmanager.repository.SchedulerLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 定期処理の担当（リース）を管理する
+ * 複数台で同じ定期処理が動いても、実行枠と分割番号の組ごとに1台だけが処理するようにする。
+ * 担当はDBの scheduler_lease 表に先に行を書き込めたノードが持つ。
+ * 担当したノードが期限（leased_until）までに完了しなかった場合は、途中で止まったとみなして他のノードが引き継ぐ。
+ * 同じ分割番号を別の実行枠で処理中のノードがいる間は、その分割番号の担当を取らない
+ * （処理が1分を超えても、次の実行枠で別のノードが同じユーザーを並行して処理しないようにする）。
+ */
+@Service
+@Slf4j
+public class SchedulerLeaseService {
+
+    private final SchedulerLeaseRepository leaseRepository;
+    // 担当の取得・引き継ぎは呼び出し元と別のトランザクションで、すぐに確定させる
+    private final TransactionTemplate newTransaction;
+    private final String nodeId;
+    private final Duration leaseTtl;
+
+    public SchedulerLeaseService(SchedulerLeaseRepository leaseRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.scheduler.node-id:}") String nodeId,
+                                 @Value("${app.scheduler.lease-ttl:10m}") Duration leaseTtl) {
+        this.leaseRepository = leaseRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // 未指定なら「プロセスID@ホスト名」に乱数を付けて、再起動後も別のノードとして扱う
+        this.nodeId = nodeId.isBlank()
+            ? ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8)
+            : nodeId;
+        this.leaseTtl = leaseTtl;
+        log.info("定期処理のノードID: {}", this.nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 担当を取る。他のノードがすでに取っていれば false
+     * 取られていても、期限を過ぎて完了していなければ引き継ぐ
+     * 同じ分割番号の別の実行枠の担当が期限内で完了していなければ、その処理が終わるまで false
+     */
+    public boolean tryAcquire(String jobName, LocalDateTime slotAt, int partitionNo) {
+        SchedulerLease.Key key = new SchedulerLease.Key();
+        key.setJobName(jobName);
+        key.setSlotAt(slotAt);
+        key.setPartitionNo(partitionNo);
+        try {
+            Boolean acquired = newTransaction.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (leaseRepository.existsActiveInOtherSlot(jobName, slotAt, partitionNo, now)) {
+                    log.debug("別の実行枠で処理中のため担当を取りません: {} {} #{}", jobName, slotAt, partitionNo);
+                    return false;
+                }
+                if (!leaseRepository.existsById(key)) {
+                    return leaseRepository.insertLease(jobName, slotAt, partitionNo, nodeId, now.plus(leaseTtl)) == 1;
+                }
+                if (leaseRepository.takeOverExpired(jobName, slotAt, partitionNo, nodeId, now.plus(leaseTtl), now) == 1) {
+                    log.warn("期限を過ぎた担当を引き継ぎました: {} {} #{}", jobName, slotAt, partitionNo);
+                    return true;
+                }
+                return false;
+            });
+            return Boolean.TRUE.equals(acquired);
+        } catch (DataIntegrityViolationException e) {
+            // 確認と書き込みの間に他のノードが先に取った
+            return false;
+        }
+    }
+
+    /**
+     * 担当した処理を完了にする
+     * 処理と同じトランザクションで呼び、担当が自分でなくなっていた場合は例外で処理ごと取り消す
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void complete(String jobName, LocalDateTime slotAt, int partitionNo) {
+        if (leaseRepository.complete(jobName, slotAt, partitionNo, nodeId, LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("担当していない処理です: " + jobName + " " + slotAt + " #" + partitionNo);
+        }
+    }
+
+    /**
+     * 完了できなかった処理の担当を手放す（次の実行枠で改めて担当を取れるようにする）
+     */
+    @Transactional
+    public void release(String jobName, LocalDateTime slotAt, int partitionNo) {
+        leaseRepository.release(jobName, slotAt, partitionNo, nodeId, LocalDateTime.now());
+    }
+
+    /**
+     * 古い実行枠の担当の記録を削除する
+     */
+    @Transactional
+    public int deleteBefore(String jobName, LocalDateTime threshold) {
+        return leaseRepository.deleteBySlotAtBefore(jobName, threshold);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.EmailOutbox;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import java.io.UnsupportedEncodingException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * spring.mail.* のSMTPサーバーで送る
+ * 渡されたメールは1回の接続でまとめて送る（1通ごとに接続し直さない）。
+ * 同時に開く接続は送信スレッドの数（app.mail.executor.pool-size）までになる。
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.mail.transport", havingValue = "smtp")
+public class SmtpMailTransport implements MailTransport {
+
+    private final JavaMailSender mailSender;
+
+    @Value("${mail.sender:}")
+    private String senderEmail;
+
+    public SmtpMailTransport(JavaMailSender mailSender) {
+        this.mailSender = mailSender;
+    }
+
+    @Override
+    public String name() {
+        return "smtp";
+    }
+
+    @Override
+    public boolean isReady() {
+        if (senderEmail == null || senderEmail.isEmpty()) {
+            log.warn("送信者のメールアドレス（mail.sender）が設定されていません。送信待ちメールは保留します。");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Map<EmailOutbox, Exception> send(List<EmailOutbox> mails) throws MessagingException, UnsupportedEncodingException {
+        // 送れなかったメッセージから元のメールを引けるよう、同じ順に並べておく
+        Map<MimeMessage, EmailOutbox> byMessage = new IdentityHashMap<>();
+        MimeMessage[] messages = new MimeMessage[mails.size()];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = toMessage(mails.get(i));
+            byMessage.put(messages[i], mails.get(i));
+        }
+
+        try {
+            // JavaMailSenderImpl は配列で渡したメッセージを1つの接続で続けて送る
+            mailSender.send(messages);
+            return Map.of();
+        } catch (MailSendException e) {
+            // 接続できなかった場合も、送れなかったメッセージとして全件が入る
+            Map<EmailOutbox, Exception> failures = new IdentityHashMap<>();
+            e.getFailedMessages().forEach((message, error) -> {
+                EmailOutbox mail = byMessage.get(message);
+                if (mail != null) {
+                    failures.put(mail, error);
+                }
+            });
+            if (failures.isEmpty()) {
+                throw e;
+            }
+            return failures;
+        }
+    }
+
+    private MimeMessage toMessage(EmailOutbox mail) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(senderEmail, EmailOutbox.SENDER_NAME);
+        helper.setTo(mail.getRecipient());
+        helper.setSubject(mail.getSubject());
+        helper.setText(mail.getContent(), EmailOutbox.HTML_CONTENT.equals(mail.getContentType()));
+        return message;
+    }
+}
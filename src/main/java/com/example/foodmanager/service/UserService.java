@@ -1,8 +1,10 @@
 package com.example.foodmanager.service;
 
+import com.example.foodmanager.model.LoginUser;
 import com.example.foodmanager.model.User;
 import com.example.foodmanager.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -10,6 +12,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class UserService implements UserDetailsService {
@@ -23,13 +27,10 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findByEmail(email)
             .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
-        return org.springframework.security.core.userdetails.User
-            // 2. ▼▼▼ 修正: ここを getEmail() から getUsername() に変更 ▼▼▼
-            // これにより、画面表示や auth.getName() が「ユーザーネーム」になります
-            .withUsername(user.getEmail()) 
-            .password(user.getPassword())
-            .roles(user.getRole().replace("ROLE_", ""))
-            .build();
+        // ログインIDはメールアドレス（auth.getName() はメールアドレスを返す）
+        // ユーザーIDも持たせて、以降のリクエストで検索し直さずに済むようにする
+        return new LoginUser(user.getId(), user.getEmail(), user.getPassword(),
+            List.of(new SimpleGrantedAuthority(user.getRole())));
     }
 
     @Transactional
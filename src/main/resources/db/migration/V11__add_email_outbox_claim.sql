@@ -0,0 +1,8 @@
+-- 送信の担当（クレーム）
+-- 複数台で動かすとき、送信前に status = SENDING と担当（claimed_by）を書き込めたノードだけがそのメールを送る。
+-- claimed_until を過ぎても SENDING のままのもの（送信中にノードが止まった）は送信待ちに戻す
+ALTER TABLE email_outbox ADD COLUMN claimed_by VARCHAR(255);
+ALTER TABLE email_outbox ADD COLUMN claimed_until TIMESTAMP(6);
+
+-- 送信中のまま期限が過ぎたものの取り出し用
+CREATE INDEX idx_email_outbox_status_claimed_until ON email_outbox (status, claimed_until);
@@ -0,0 +1,48 @@
+-- 初期スキーマ（これまで ddl-auto=update で作成されていたテーブル定義）
+-- 既存のデータベースでは baseline-on-migrate により、このバージョンは適用済みとして扱われる
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL,
+    notification_days_before INTEGER NOT NULL,
+    notification_time TIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE foods (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    expiration_date DATE NOT NULL,
+    registered_at TIMESTAMP(6) NOT NULL,
+    notification_sent BOOLEAN NOT NULL,
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_foods_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE password_reset_token (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    token VARCHAR(255),
+    expiry_date TIMESTAMP(6),
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_password_reset_token_user UNIQUE (user_id),
+    CONSTRAINT fk_password_reset_token_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE saved_recipes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    ingredients TEXT NOT NULL,
+    instructions TEXT NOT NULL,
+    cooking_time VARCHAR(255),
+    difficulty VARCHAR(255),
+    saved_at TIMESTAMP(6),
+    user_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_saved_recipes_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
@@ -0,0 +1,14 @@
+-- よく使う検索条件に合わせたインデックス
+-- users(email) は V1 の一意制約 uk_users_email のインデックスで検索されるため追加しない
+
+-- FoodRepository のユーザー別・期限日での検索、並び替え
+CREATE INDEX idx_foods_user_expiration ON foods (user_id, expiration_date);
+
+-- 未通知の食品を登録日時で探す検索
+CREATE INDEX idx_foods_registered_notification ON foods (registered_at, notification_sent);
+
+-- 定期通知で通知時刻が一致するユーザーを探す検索
+CREATE INDEX idx_users_notification_time ON users (notification_time);
+
+-- パスワード再設定トークンの検索・削除
+CREATE INDEX idx_password_reset_token_token ON password_reset_token (token);
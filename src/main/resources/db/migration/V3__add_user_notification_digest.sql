@@ -0,0 +1,2 @@
+-- 期限が近い食品を1通のメールにまとめて送る（ダイジェスト通知）かどうか
+ALTER TABLE users ADD COLUMN notification_digest BOOLEAN DEFAULT FALSE NOT NULL;
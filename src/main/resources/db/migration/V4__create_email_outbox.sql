@@ -0,0 +1,19 @@
+-- 送信待ちメール（アウトボックス）
+-- 呼び出し元のトランザクション内で書き込み、EmailOutboxDispatcher がまとめて送信する
+CREATE TABLE email_outbox (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    content_type VARCHAR(20) NOT NULL,
+    content TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP(6) NOT NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP(6) NOT NULL,
+    sent_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+-- 送信対象（status = PENDING かつ再送時刻を過ぎたもの）の取り出し用
+CREATE INDEX idx_email_outbox_status_next_attempt ON email_outbox (status, next_attempt_at);
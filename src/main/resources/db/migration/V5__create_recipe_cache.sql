@@ -0,0 +1,13 @@
+-- レシピ生成結果のキャッシュ（2段目: 再起動後も使えるようにDBに保存する）
+-- cache_key は正規化した食材の組み合わせの SHA-256（16進）
+CREATE TABLE recipe_cache (
+    cache_key VARCHAR(64) NOT NULL,
+    ingredient_set VARCHAR(2000) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    ingredients TEXT NOT NULL,
+    instructions TEXT NOT NULL,
+    cooking_time VARCHAR(255),
+    difficulty VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (cache_key)
+);
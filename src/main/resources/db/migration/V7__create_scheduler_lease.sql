@@ -0,0 +1,12 @@
+-- 定期処理の担当（リース）
+-- 複数台で動かすとき、実行枠（slot_at）と分割番号（partition_no）ごとに1台だけが処理するよう、
+-- 先にこの表へ行を書き込めたノードが担当する。completed_at が入るまでは leased_until が担当の期限
+CREATE TABLE scheduler_lease (
+    job_name VARCHAR(50) NOT NULL,
+    slot_at TIMESTAMP(6) NOT NULL,
+    partition_no INTEGER NOT NULL,
+    owner VARCHAR(255) NOT NULL,
+    leased_until TIMESTAMP(6) NOT NULL,
+    completed_at TIMESTAMP(6),
+    PRIMARY KEY (job_name, slot_at, partition_no)
+);
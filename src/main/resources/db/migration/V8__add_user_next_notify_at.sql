@@ -0,0 +1,6 @@
+-- 次に通知する日時（通知時刻の設定から計算し、通知のたびに翌日へ進める）
+-- 既存のユーザーは NULL のまま追加し、NotificationSchedulerService が初回の実行時に設定する
+ALTER TABLE users ADD COLUMN next_notify_at TIMESTAMP(6);
+
+-- 通知日時を迎えたユーザーの取り出し用
+CREATE INDEX idx_users_next_notify_at ON users (next_notify_at);
@@ -0,0 +1,11 @@
+-- 送った通知の記録（食品・通知の種類・対象日ごとに1行）
+-- 即時通知と定期通知のどちらも、送る前にこの表へ行を追加できた場合だけ送る。
+-- 送信待ちメールと同じトランザクションで書き込むため、送信が取り消されれば記録も残らない
+CREATE TABLE notification_ledger (
+    food_id BIGINT NOT NULL,
+    kind VARCHAR(30) NOT NULL,
+    target_date DATE NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (food_id, kind, target_date),
+    CONSTRAINT fk_notification_ledger_food FOREIGN KEY (food_id) REFERENCES foods (id) ON DELETE CASCADE
+);
@@ -0,0 +1,58 @@
+/**
+ * 一覧の無限スクロール
+ * 番兵（sentinel）が画面に入ったら endpoint から続きのページを読み込み、1件ずつ buildItem で要素にして container に追加する。
+ * 次のページの開始位置は番兵の data-after-date / data-after-id に持たせる（最初の値は画面の描画時に埋め込む）。
+ * endpoint は { items, hasNext, nextAfterDate, nextAfterId } を返すこと（例: /api/foods）。
+ *
+ * @param {Object} options
+ * @param {HTMLElement} options.sentinel 一覧の末尾に置いた番兵
+ * @param {HTMLElement} options.container 読み込んだ要素を追加する先
+ * @param {string} options.endpoint 続きのページを返すURL
+ * @param {function(Object): Node} options.buildItem 1件分の要素を作る
+ * @param {string} options.errorMessage 読み込みに失敗したときに番兵の位置に出す文言
+ */
+function setupInfiniteScroll({ sentinel, container, endpoint, buildItem, errorMessage }) {
+  let loadingPage = false;
+  let loadFailed = false;
+
+  const observer = new IntersectionObserver(entries => {
+    if (!entries[0].isIntersecting || loadingPage) return;
+    loadingPage = true;
+
+    const params = new URLSearchParams({
+      afterDate: sentinel.dataset.afterDate,
+      afterId: sentinel.dataset.afterId
+    });
+    fetch(endpoint + '?' + params)
+      .then(response => {
+        if (!response.ok) throw new Error('一覧の読み込みに失敗しました');
+        return response.json();
+      })
+      .then(page => {
+        page.items.forEach(item => container.appendChild(buildItem(item)));
+        if (page.hasNext) {
+          sentinel.dataset.afterDate = page.nextAfterDate;
+          sentinel.dataset.afterId = page.nextAfterId;
+        } else {
+          observer.disconnect();
+          sentinel.remove();
+        }
+      })
+      .catch(error => {
+        console.error('Error:', error);
+        loadFailed = true;
+        observer.disconnect();
+        sentinel.textContent = errorMessage;
+      })
+      .finally(() => {
+        loadingPage = false;
+        // 追加した行が少なく番兵が画面内に残ったままだと、交差の状態が変わらず次の読み込みが呼ばれない。
+        // 監視し直すと今の位置で判定し直されるので、画面が埋まるまで続けて読み込む
+        if (!loadFailed && sentinel.isConnected) {
+          observer.unobserve(sentinel);
+          observer.observe(sentinel);
+        }
+      });
+  });
+  observer.observe(sentinel);
+}
@@ -0,0 +1,55 @@
+package com.example.foodmanager.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Actuator をアプリとは別のポートで受け付けていることのテスト
+ * アプリのポートでは Prometheus の収集を受け付けず、死活監視（/livez・/readyz）だけを返す
+ * （テストでは既定でメトリクスの出力が無効になるため、@AutoConfigureObservability で有効にする）
+ */
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ActuatorSecurityTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void servesPrometheusOnlyOnManagementPort() throws Exception {
+        HttpResponse<String> metrics = get("local.management.port", "/actuator/prometheus");
+        assertThat(metrics.statusCode()).isEqualTo(200);
+        assertThat(metrics.body()).contains("jvm_memory");
+        assertThat(get("local.management.port", "/actuator/health").statusCode()).isEqualTo(200);
+
+        // アプリのポートには Actuator がなく、メトリクスは返さない
+        HttpResponse<String> response = get("local.server.port", "/actuator/prometheus");
+        assertThat(response.statusCode()).isNotEqualTo(200);
+        assertThat(response.body()).doesNotContain("jvm_memory");
+    }
+
+    @Test
+    void servesProbesOnServerPortWithoutLogin() throws Exception {
+        assertThat(get("local.server.port", "/livez").statusCode()).isEqualTo(200);
+        assertThat(get("local.server.port", "/readyz").statusCode()).isEqualTo(200);
+    }
+
+    private HttpResponse<String> get(String portProperty, String path) throws Exception {
+        URI uri = URI.create("http://localhost:" + environment.getProperty(portProperty) + path);
+        return client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
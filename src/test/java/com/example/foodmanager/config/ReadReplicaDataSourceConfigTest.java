@@ -0,0 +1,113 @@
+package com.example.foodmanager.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 読み取り専用のトランザクションのリードレプリカへの振り分けと、書き込み直後の書き込み用への固定のテスト
+ * 書き込み用・読み取り用に別々のインメモリDBを使い、接続先のURLで見分ける
+ */
+class ReadReplicaDataSourceConfigTest {
+
+    private final ReadReplicaDataSourceConfig config = new ReadReplicaDataSourceConfig();
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private DataSource dataSource;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("primary");
+        replica = h2("replica");
+        dataSource = config.dataSource(primary, replica);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void routesEachTransactionByItsReadOnlyFlag() {
+        assertThat(connectedTo(readOnly)).contains("replica");
+        assertThat(connectedTo(readWrite)).contains("primary");
+        // 同じスレッドで続けても、トランザクションごとに接続先を選び直す
+        assertThat(connectedTo(readOnly)).contains("replica");
+    }
+
+    @Test
+    void readsFromPrimaryAfterAWriteInTheSameSession() throws Exception {
+        OncePerRequestFilter filter = config.readYourWritesFilter(Duration.ofSeconds(5));
+        MockHttpSession session = new MockHttpSession();
+
+        assertThat(inRequest(filter, "GET", session)).contains("replica");
+        // 書き込みのリクエストの中の読み取りも書き込み用から読む
+        assertThat(inRequest(filter, "POST", session)).contains("primary");
+        // 書き込みの直後（リダイレクト先の表示など）は、同じセッションなら書き込み用から読む
+        assertThat(inRequest(filter, "GET", session)).contains("primary");
+        // 別のセッションには影響しない
+        assertThat(inRequest(filter, "GET", new MockHttpSession())).contains("replica");
+    }
+
+    @Test
+    void returnsToReplicaAfterReadYourWritesWindow() throws Exception {
+        OncePerRequestFilter filter = config.readYourWritesFilter(Duration.ZERO);
+        MockHttpSession session = new MockHttpSession();
+
+        inRequest(filter, "POST", session);
+        Thread.sleep(5);
+
+        assertThat(inRequest(filter, "GET", session)).contains("replica");
+    }
+
+    private String inRequest(OncePerRequestFilter filter, String method, MockHttpSession session) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/settings");
+        request.setSession(session);
+        AtomicReference<String> url = new AtomicReference<>();
+        FilterChain chain = (req, res) -> url.set(connectedTo(readOnly));
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return url.get();
+    }
+
+    private String connectedTo(TransactionTemplate transaction) {
+        return transaction.execute(status -> {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                return connection.getMetaData().getURL();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static HikariDataSource h2(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.foodmanager.controller;
+
+import com.example.foodmanager.model.LoginUser;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.UserRepository;
+import com.example.foodmanager.service.FoodService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * open-in-view を無効にした状態で、各画面がトランザクションの外で描画できることのテスト
+ * （遅延読み込みの参照が画面に渡っていれば LazyInitializationException になる）
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PageRenderingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FoodService foodService;
+
+    private User user;
+    private Long foodId;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("テスト");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user = userRepository.save(user);
+        foodId = foodService.addFood(user, "牛乳", LocalDate.now().plusDays(10)).getId();
+    }
+
+    @Test
+    void rendersPagesOutsideTransactions() throws Exception {
+        mockMvc.perform(get("/").with(login())).andExpect(status().isOk());
+        mockMvc.perform(get("/recipe/suggest").with(login())).andExpect(status().isOk());
+        mockMvc.perform(get("/edit/" + foodId).with(login())).andExpect(status().isOk());
+        mockMvc.perform(get("/settings").with(login()))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("1 個")));
+    }
+
+    @Test
+    void updatesSettingsOfCurrentUser() throws Exception {
+        mockMvc.perform(post("/settings").with(login()).with(csrf())
+                .param("days", "5").param("time", "07:30").param("digest", "true"))
+            .andExpect(status().is3xxRedirection());
+
+        User updated = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(updated.getNotificationDaysBefore()).isEqualTo(5);
+        assertThat(updated.isNotificationDigest()).isTrue();
+    }
+
+    private RequestPostProcessor login() {
+        return user(new LoginUser(user.getId(), user.getEmail(), user.getPassword(),
+            List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+}
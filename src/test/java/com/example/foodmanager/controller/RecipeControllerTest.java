@@ -0,0 +1,99 @@
+package com.example.foodmanager.controller;
+
+import com.example.foodmanager.model.LoginUser;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.UserRepository;
+import com.example.foodmanager.service.FoodService;
+import com.example.foodmanager.service.GeminiBusyException;
+import com.example.foodmanager.service.RecipeCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * レシピ生成のストリーミング（Server-Sent Events）のテスト
+ * 失敗したときの error イベントに、混雑かその他の失敗かを区別するコードと表示する文言が入ることを確かめる
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RecipeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FoodService foodService;
+
+    @MockBean
+    private RecipeCacheService recipeCacheService;
+
+    private User user;
+    private Long foodId;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("テスト");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user = userRepository.save(user);
+        foodId = foodService.addFood(user, "キャベツ", LocalDate.now().plusDays(10)).getId();
+    }
+
+    @Test
+    void busyErrorEventCarriesBusyCode() throws Exception {
+        when(recipeCacheService.stream(anyList())).thenReturn(Flux.error(new GeminiBusyException("混雑しています")));
+
+        String body = streamRecipe();
+
+        assertThat(body).contains("event:error").contains("\"code\":\"busy\"").contains("混み合っています");
+    }
+
+    @Test
+    void otherErrorEventCarriesErrorCode() throws Exception {
+        when(recipeCacheService.stream(anyList())).thenReturn(Flux.error(new RuntimeException("接続できません")));
+
+        String body = streamRecipe();
+
+        assertThat(body).contains("event:error").contains("\"code\":\"error\"").doesNotContain("接続できません");
+    }
+
+    private String streamRecipe() throws Exception {
+        MvcResult started = mockMvc.perform(post("/recipe/generate/stream").with(login())
+                .param("selectedFoodIds", foodId.toString()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private RequestPostProcessor login() {
+        return user(new LoginUser(user.getId(), user.getEmail(), user.getPassword(),
+            List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.EmailOutbox;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Brevo のバッチ送信で、一部のメールが原因で 4xx になった場合の扱いのテスト
+ * Brevo API の代わりに、宛先に "bad" を含むリクエストを 400 で断るHTTPサーバーを立てる
+ */
+class BrevoMailTransportTest {
+
+    private HttpServer server;
+    private BrevoMailTransport transport;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int forcedStatus;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v3/smtp/email", exchange -> {
+            requests.incrementAndGet();
+            String body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            int status = forcedStatus != 0 ? forcedStatus : body.contains("bad") ? 400 : 201;
+            byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+
+        transport = new BrevoMailTransport(WebClient.builder(), 4, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(transport, "brevoApiKey", "test");
+        ReflectionTestUtils.setField(transport, "brevoApiUrl", "http://localhost:" + server.getAddress().getPort() + "/v3/smtp/email");
+        ReflectionTestUtils.setField(transport, "senderEmail", "sender@example.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void sendsWholeBatchInOneRequest() throws Exception {
+        assertThat(transport.send(mails(50, -1))).isEmpty();
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void returnsOnlyTheRejectedMail() throws Exception {
+        List<EmailOutbox> mails = mails(50, 17);
+
+        Map<EmailOutbox, Exception> failures = transport.send(mails);
+
+        assertThat(failures).hasSize(1).containsKey(mails.get(17));
+        assertThat(failures.get(mails.get(17))).isInstanceOf(WebClientResponseException.BadRequest.class);
+        // 半分ずつに分けて絞り込むので、件数に比例したリクエストにはならない
+        assertThat(requests.get()).isLessThanOrEqualTo(1 + 2 * 6);
+    }
+
+    @Test
+    void failsWholeBatchOnAuthenticationError() {
+        forcedStatus = 401;
+
+        assertThatThrownBy(() -> transport.send(mails(50, -1)))
+            .isInstanceOf(WebClientResponseException.Unauthorized.class);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    // badIndex 番目だけ宛先に "bad" を含むメール
+    private static List<EmailOutbox> mails(int count, int badIndex) {
+        List<EmailOutbox> mails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EmailOutbox mail = new EmailOutbox();
+            mail.setId((long) i);
+            mail.setRecipient((i == badIndex ? "bad" : "user") + i + "@example.com");
+            mail.setSubject("件名");
+            mail.setContentType(EmailOutbox.TEXT_CONTENT);
+            mail.setContent("本文");
+            mails.add(mail);
+        }
+        return mails;
+    }
+}
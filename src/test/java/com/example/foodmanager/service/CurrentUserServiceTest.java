@@ -0,0 +1,77 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.LoginUser;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ログイン中のユーザーの取得（CurrentUserService）のテスト
+ * ユーザーIDを持つ認証情報・メールアドレスだけの認証情報から取得できることと、
+ * ログインしていない場合はユーザーが見つからない場合と同じ例外になることを確かめる
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CurrentUserServiceTest {
+
+    @Autowired
+    private CurrentUserService currentUserService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void resolvesUserFromLoginPrincipalAndFromEmail() {
+        User user = saveUser();
+
+        LoginUser principal = new LoginUser(user.getId(), user.getEmail(), user.getPassword(),
+            AuthorityUtils.createAuthorityList("ROLE_USER"));
+        authenticate(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        assertThat(currentUserService.getCurrentUser().getId()).isEqualTo(user.getId());
+
+        // ユーザーIDを持たない認証情報（更新前のセッション）
+        authenticate(new UsernamePasswordAuthenticationToken(user.getEmail(), null,
+            AuthorityUtils.createAuthorityList("ROLE_USER")));
+        assertThat(currentUserService.getCurrentUser().getId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void rejectsMissingOrAnonymousAuthentication() {
+        assertThatThrownBy(currentUserService::getCurrentUser).hasMessage("User not found");
+
+        authenticate(new AnonymousAuthenticationToken("key", "anonymousUser",
+            AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        assertThatThrownBy(currentUserService::getCurrentUser).hasMessage("User not found");
+    }
+
+    private void authenticate(Authentication authentication) {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private User saveUser() {
+        User user = new User();
+        user.setUsername("テスト");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.EmailOutbox;
+import com.example.foodmanager.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 送信待ちメールの送信（担当の取得・結果の書き込み）のテスト
+ * 実際には送らず、渡されたメールを記録する MailTransport に差し替える
+ */
+@SpringBootTest(properties = "app.mail.transport=recording")
+@ActiveProfiles("test")
+class EmailOutboxDispatcherTest {
+
+    @TestConfiguration
+    static class RecordingTransportConfig {
+        @Bean
+        RecordingTransport recordingTransport() {
+            return new RecordingTransport();
+        }
+    }
+
+    static class RecordingTransport implements MailTransport {
+        final Queue<String> sent = new ConcurrentLinkedQueue<>();
+        volatile Set<String> rejectedRecipients = Set.of();
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public Map<EmailOutbox, Exception> send(List<EmailOutbox> mails) {
+            Map<EmailOutbox, Exception> failures = new HashMap<>();
+            for (EmailOutbox mail : mails) {
+                if (rejectedRecipients.contains(mail.getRecipient())) {
+                    failures.put(mail, new IllegalArgumentException("rejected: " + mail.getRecipient()));
+                } else {
+                    sent.add(mail.getRecipient());
+                }
+            }
+            return failures;
+        }
+    }
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private RecordingTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        transport.sent.clear();
+        transport.rejectedRecipients = Set.of();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void sendsEachMailOnceWhenDispatchedConcurrently() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            enqueue("user" + i + "@example.com");
+        }
+
+        // 複数のノードの定期実行が重なった場合と同じく、同時に何度も呼ぶ
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> runs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            runs.add(executor.submit(dispatcher::dispatchPending));
+        }
+        for (Future<?> run : runs) {
+            run.get();
+        }
+        executor.shutdown();
+
+        assertThat(transport.sent).hasSize(500).doesNotHaveDuplicates();
+        assertThat(outboxRepository.findAll())
+            .allSatisfy(mail -> {
+                assertThat(mail.getStatus()).isEqualTo(EmailOutbox.Status.SENT);
+                assertThat(mail.getAttempts()).isEqualTo(1);
+                assertThat(mail.getClaimedBy()).isNull();
+            });
+    }
+
+    @Test
+    void marksOnlyRejectedMailAsFailed() {
+        enqueue("ok1@example.com");
+        enqueue("bad@example.com");
+        enqueue("ok2@example.com");
+        transport.rejectedRecipients = Set.of("bad@example.com");
+
+        dispatcher.dispatchPending();
+
+        Map<String, EmailOutbox> byRecipient = new HashMap<>();
+        outboxRepository.findAll().forEach(mail -> byRecipient.put(mail.getRecipient(), mail));
+        assertThat(byRecipient.get("ok1@example.com").getStatus()).isEqualTo(EmailOutbox.Status.SENT);
+        assertThat(byRecipient.get("ok2@example.com").getStatus()).isEqualTo(EmailOutbox.Status.SENT);
+        EmailOutbox bad = byRecipient.get("bad@example.com");
+        assertThat(bad.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(bad.getAttempts()).isEqualTo(1);
+        assertThat(bad.getLastError()).contains("rejected");
+        assertThat(bad.getNextAttemptAt()).isAfter(LocalDateTime.now());
+    }
+
+    @Test
+    void requeuesMailWhoseClaimHasExpired() {
+        // 送信中にノードが止まり、担当の期限が過ぎたメール
+        EmailOutbox stuck = enqueue("stuck@example.com");
+        stuck.setStatus(EmailOutbox.Status.SENDING);
+        stuck.setClaimedBy("stopped-node/1");
+        stuck.setClaimedUntil(LocalDateTime.now().minusMinutes(1));
+        outboxRepository.save(stuck);
+        // 他のノードが送信中（期限内）のメールには手を出さない
+        EmailOutbox inFlight = enqueue("in-flight@example.com");
+        inFlight.setStatus(EmailOutbox.Status.SENDING);
+        inFlight.setClaimedBy("other-node/1");
+        inFlight.setClaimedUntil(LocalDateTime.now().plusMinutes(5));
+        outboxRepository.save(inFlight);
+
+        dispatcher.dispatchPending();
+
+        assertThat(transport.sent).containsExactly("stuck@example.com");
+        assertThat(outboxRepository.findById(stuck.getId()).orElseThrow().getStatus()).isEqualTo(EmailOutbox.Status.SENT);
+        assertThat(outboxRepository.findById(inFlight.getId()).orElseThrow().getStatus()).isEqualTo(EmailOutbox.Status.SENDING);
+    }
+
+    @Test
+    void purgesOnlyFinishedMailPastRetention() {
+        EmailOutbox oldSent = enqueueCreatedAt("old-sent@example.com", EmailOutbox.Status.SENT, 31);
+        EmailOutbox oldDead = enqueueCreatedAt("old-dead@example.com", EmailOutbox.Status.DEAD, 31);
+        // 送信待ちのものと、保存期間内のものは残す
+        EmailOutbox oldPending = enqueueCreatedAt("old-pending@example.com", EmailOutbox.Status.PENDING, 31);
+        EmailOutbox recentSent = enqueueCreatedAt("recent-sent@example.com", EmailOutbox.Status.SENT, 1);
+
+        dispatcher.purgeFinished();
+
+        assertThat(outboxRepository.findAll()).extracting(EmailOutbox::getId)
+            .containsExactlyInAnyOrder(oldPending.getId(), recentSent.getId())
+            .doesNotContain(oldSent.getId(), oldDead.getId());
+    }
+
+    private EmailOutbox enqueueCreatedAt(String recipient, EmailOutbox.Status status, int daysAgo) {
+        EmailOutbox mail = enqueue(recipient);
+        mail.setStatus(status);
+        mail.setCreatedAt(LocalDateTime.now().minusDays(daysAgo));
+        return outboxRepository.save(mail);
+    }
+
+    private EmailOutbox enqueue(String recipient) {
+        EmailOutbox mail = new EmailOutbox();
+        mail.setRecipient(recipient);
+        mail.setSubject("件名");
+        mail.setContentType(EmailOutbox.TEXT_CONTENT);
+        mail.setContent("本文");
+        return outboxRepository.save(mail);
+    }
+}
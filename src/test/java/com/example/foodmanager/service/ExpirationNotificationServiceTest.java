@@ -0,0 +1,160 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.EmailOutbox;
+import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.NotificationLedger;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.EmailOutboxRepository;
+import com.example.foodmanager.repository.FoodRepository;
+import com.example.foodmanager.repository.NotificationLedgerRepository;
+import com.example.foodmanager.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 消費期限のお知らせのテスト
+ * 同じ食品・同じ消費期限について、即時通知（FoodChangeNotifier）と定期通知（NotificationSchedulerService）の
+ * どちらを先に通っても、送った記録（notification_ledger）と送信待ちメール（email_outbox）が1件ずつになることを確かめる
+ */
+@SpringBootTest(properties = "app.notification.enabled=true")
+@ActiveProfiles("test")
+class ExpirationNotificationServiceTest {
+
+    private static final int DAYS_BEFORE = 3;
+
+    @Autowired
+    private FoodService foodService;
+
+    @Autowired
+    private NotificationSchedulerService schedulerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FoodRepository foodRepository;
+
+    @Autowired
+    private NotificationLedgerRepository ledgerRepository;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void immediateThenScheduledSendsOnce() throws Exception {
+        LocalDateTime slot = slot();
+        User user = saveDueUser(slot);
+
+        double completed = completedFoodEvents();
+        Food food = foodService.addFood(user, "牛乳", slot.toLocalDate().plusDays(DAYS_BEFORE));
+        awaitFoodEvents(completed + 1);
+        schedulerService.processSlot(slot);
+
+        assertSentOnce(user, food);
+    }
+
+    @Test
+    void scheduledThenImmediateSendsOnce() throws Exception {
+        LocalDateTime slot = slot();
+        User user = saveDueUser(slot);
+        Food food = saveFood(user, "卵", slot.toLocalDate().plusDays(DAYS_BEFORE));
+
+        schedulerService.processSlot(slot);
+        double completed = completedFoodEvents();
+        foodService.updateFood(user, food.getId(), "卵", food.getExpirationDate());
+        awaitFoodEvents(completed + 1);
+
+        assertSentOnce(user, food);
+    }
+
+    @Test
+    void concurrentPathsSendOnce() throws Exception {
+        LocalDateTime slot = slot();
+        List<User> users = new ArrayList<>();
+        List<Food> foods = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = saveDueUser(slot);
+            users.add(user);
+            foods.add(saveFood(user, "豆腐", slot.toLocalDate().plusDays(DAYS_BEFORE)));
+        }
+
+        double completed = completedFoodEvents();
+        CompletableFuture<Void> scheduled = CompletableFuture.runAsync(() -> schedulerService.processSlot(slot));
+        for (int i = 0; i < users.size(); i++) {
+            foodService.updateFood(users.get(i), foods.get(i).getId(), "豆腐", foods.get(i).getExpirationDate());
+        }
+        scheduled.get();
+        awaitFoodEvents(completed + users.size());
+        // 定期通知の側が取り消された場合に備えて、もう一度実行する（記録済みの食品は送らない）
+        schedulerService.processSlot(slot.plusSeconds(1));
+
+        for (int i = 0; i < users.size(); i++) {
+            assertSentOnce(users.get(i), foods.get(i));
+        }
+    }
+
+    private void assertSentOnce(User user, Food food) {
+        List<NotificationLedger> ledger = ledgerRepository.findAll().stream()
+            .filter(row -> row.getFoodId().equals(food.getId()))
+            .toList();
+        assertThat(ledger).singleElement()
+            .extracting(NotificationLedger::getTargetDate).isEqualTo(food.getExpirationDate());
+        List<EmailOutbox> mails = outboxRepository.findAll().stream()
+            .filter(mail -> mail.getRecipient().equals(user.getEmail()))
+            .toList();
+        assertThat(mails).hasSize(1);
+    }
+
+    // 毎分の定期実行に先に拾われないよう、少し先の（秒が半端な）日時を実行枠にする
+    private static LocalDateTime slot() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).plusMinutes(5).plusSeconds(30);
+    }
+
+    private User saveDueUser(LocalDateTime slot) {
+        User user = new User();
+        user.setUsername("notify");
+        user.setEmail("notify-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setNotificationDaysBefore(DAYS_BEFORE);
+        user.setNotificationTime(slot.toLocalTime());
+        user.setNextNotifyAt(slot);
+        return userRepository.save(user);
+    }
+
+    private Food saveFood(User user, String name, LocalDate expirationDate) {
+        Food food = new Food();
+        food.setName(name);
+        food.setExpirationDate(expirationDate);
+        food.setUser(user);
+        return foodRepository.save(food);
+    }
+
+    // 即時通知は別スレッド（food-events-*）で処理されるので、その処理数で終わりを待つ
+    private double completedFoodEvents() {
+        return meterRegistry.get("executor.completed").tag("name", "food-events").functionCounter().count();
+    }
+
+    private void awaitFoodEvents(double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (completedFoodEvents() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(completedFoodEvents()).isGreaterThanOrEqualTo(expected);
+    }
+}
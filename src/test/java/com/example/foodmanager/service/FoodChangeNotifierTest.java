@@ -0,0 +1,133 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.EmailOutbox;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.EmailOutboxRepository;
+import com.example.foodmanager.repository.FoodRepository;
+import com.example.foodmanager.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 食品の登録・更新時のお知らせ（FoodChangeNotifier）のテスト
+ * コミットされた変更だけが送られることと、短い間に続けて登録した分が1回にまとまることを確かめる
+ */
+@SpringBootTest(properties = "app.notification.enabled=true")
+@ActiveProfiles("test")
+class FoodChangeNotifierTest {
+
+    @Autowired
+    private FoodService foodService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FoodRepository foodRepository;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.food-events.coalesce-window}")
+    private Duration coalesceWindow;
+
+    @Test
+    void quickAddsAreSentAsOneDigest() throws Exception {
+        User user = saveUser(true);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        double completed = completedFoodEvents();
+        foodService.addFood(user, "牛乳", tomorrow);
+        foodService.addFood(user, "卵", tomorrow);
+        foodService.addFood(user, "豆腐", tomorrow);
+        awaitFoodEvents(completed + 1);
+
+        assertThat(mailsTo(user)).singleElement()
+            .extracting(EmailOutbox::getSubject).asString().contains("3件");
+    }
+
+    @Test
+    void sentOnlyAfterCommit() throws Exception {
+        User user = saveUser(false);
+
+        double completed = completedFoodEvents();
+        transactionTemplate.executeWithoutResult(status -> {
+            foodService.addFood(user, "牛乳", LocalDate.now().plusDays(1));
+            // まとめる時間が過ぎても、コミットするまでは送らない
+            sleep(coalesceWindow.multipliedBy(3));
+            assertThat(completedFoodEvents()).isEqualTo(completed);
+        });
+        awaitFoodEvents(completed + 1);
+
+        assertThat(mailsTo(user)).hasSize(1);
+    }
+
+    @Test
+    void rolledBackAddIsNotSent() {
+        User user = saveUser(false);
+
+        double completed = completedFoodEvents();
+        transactionTemplate.executeWithoutResult(status -> {
+            foodService.addFood(user, "牛乳", LocalDate.now().plusDays(1));
+            status.setRollbackOnly();
+        });
+        sleep(coalesceWindow.multipliedBy(3));
+
+        assertThat(completedFoodEvents()).isEqualTo(completed);
+        assertThat(foodRepository.findByUser(user)).isEmpty();
+        assertThat(mailsTo(user)).isEmpty();
+    }
+
+    private User saveUser(boolean digest) {
+        User user = new User();
+        user.setUsername("events");
+        user.setEmail("events-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setNotificationDigest(digest);
+        return userRepository.save(user);
+    }
+
+    private List<EmailOutbox> mailsTo(User user) {
+        return outboxRepository.findAll().stream()
+            .filter(mail -> mail.getRecipient().equals(user.getEmail()))
+            .toList();
+    }
+
+    private double completedFoodEvents() {
+        return meterRegistry.get("executor.completed").tag("name", "food-events").functionCounter().count();
+    }
+
+    private void awaitFoodEvents(double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (completedFoodEvents() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(completedFoodEvents()).isGreaterThanOrEqualTo(expected);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
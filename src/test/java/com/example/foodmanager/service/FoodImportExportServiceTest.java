@@ -0,0 +1,174 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.Food;
+import com.example.foodmanager.model.FoodImportResult;
+import com.example.foodmanager.model.NotificationLedger;
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.FoodRepository;
+import com.example.foodmanager.repository.NotificationLedgerRepository;
+import com.example.foodmanager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 食品の一括登録のテスト
+ * 上限を超えた行を結果で知らせることと、登録した食品のお知らせがコミット後に送られることを確かめる
+ * 書き出したCSV（改行やカンマ・" を含む名称）をそのまま読み込めることも確かめる
+ */
+@SpringBootTest(properties = "app.food-import.max-rows=3")
+@ActiveProfiles("test")
+class FoodImportExportServiceTest {
+
+    @Autowired
+    private FoodImportExportService importExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FoodRepository foodRepository;
+
+    @Autowired
+    private NotificationLedgerRepository ledgerRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("import");
+        user.setEmail("import-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void csvRowsBeyondMaxRowsAreReported() throws Exception {
+        String tomorrow = LocalDate.now().plusDays(1).toString();
+        String csv = "name,expirationDate\n"
+            + "牛乳," + tomorrow + "\n"
+            + "卵," + tomorrow + "\n"
+            + "\n"
+            + "豆腐," + tomorrow + "\n"
+            + "納豆," + tomorrow + "\n"
+            + "ヨーグルト," + tomorrow + "\n";
+
+        FoodImportResult result = importExportService.importCsv(user, stream(csv));
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.isTruncated()).isTrue();
+        assertThat(result.getErrors()).singleElement().asString().startsWith("6行目以降");
+        assertThat(foodRepository.findByUser(user)).extracting(Food::getName)
+            .containsExactlyInAnyOrder("牛乳", "卵", "豆腐");
+    }
+
+    @Test
+    void jsonWithinMaxRowsIsNotTruncated() throws Exception {
+        String json = "[{\"name\":\"牛乳\",\"expirationDate\":\"2030-01-01\"},"
+            + "{\"name\":\"卵\",\"expirationDate\":\"2030-01-02\"},"
+            + "{\"name\":\"豆腐\",\"expirationDate\":\"2030-01-03\"}]";
+
+        FoodImportResult result = importExportService.importJson(user, stream(json));
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.isTruncated()).isFalse();
+        assertThat(result.getErrors()).isEmpty();
+    }
+
+    @Test
+    void jsonObjectsBeyondMaxRowsAreReported() throws Exception {
+        String json = "[" + "{\"name\":\"牛乳\",\"expirationDate\":\"2030-01-01\"},".repeat(4)
+            + "{\"name\":\"卵\",\"expirationDate\":\"2030-01-02\"}]";
+
+        FoodImportResult result = importExportService.importJson(user, stream(json));
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.isTruncated()).isTrue();
+        assertThat(result.getErrors()).singleElement().asString().startsWith("4件目以降");
+    }
+
+    @Test
+    void importedFoodsNearExpirationAreNotifiedAfterCommit() throws Exception {
+        String soon = LocalDate.now().plusDays(1).toString();
+        String csv = "牛乳," + soon + "\n卵," + soon + "\n豆腐,2099-01-01\n";
+
+        importExportService.importCsv(user, stream(csv));
+
+        Set<Long> dueIds = foodRepository.findByUser(user).stream()
+            .filter(food -> !food.getName().equals("豆腐"))
+            .map(Food::getId)
+            .collect(Collectors.toSet());
+        // お知らせはコミット後に別スレッドで送られるので、記録が揃うまで少し待つ
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<Long> notified = notifiedFoodIds();
+        while (!notified.containsAll(dueIds) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            notified = notifiedFoodIds();
+        }
+        assertThat(notified).containsAll(dueIds);
+        assertThat(foodRepository.findByUser(user)).filteredOn(food -> food.getName().equals("豆腐"))
+            .extracting(Food::getId)
+            .doesNotContainAnyElementsOf(notified);
+    }
+
+    @Test
+    void exportedCsvWithLineBreaksAndQuotesImportsBack() throws Exception {
+        LocalDate date = LocalDate.now().plusDays(30);
+        List<String> names = List.of("牛乳\n（低脂肪）", "卵, Lサイズ", "\"特売\"豆腐");
+        names.forEach(name -> {
+            Food food = new Food();
+            food.setName(name);
+            food.setExpirationDate(date);
+            food.setUser(user);
+            foodRepository.save(food);
+        });
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        importExportService.exportCsv(user.getId(), exported);
+
+        User other = new User();
+        other.setUsername("import");
+        other.setEmail("import-" + UUID.randomUUID() + "@example.com");
+        other.setPassword("password");
+        other = userRepository.save(other);
+        FoodImportResult result = importExportService.importCsv(other,
+            new ByteArrayInputStream(exported.toByteArray()));
+
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(foodRepository.findByUser(other)).extracting(Food::getName)
+            .containsExactlyInAnyOrderElementsOf(names);
+    }
+
+    @Test
+    void rowNumbersCountPhysicalLinesOfQuotedLineBreaks() throws Exception {
+        String csv = "\"牛乳\n（低脂肪）\",2030-01-01\n"
+            + "卵,不明\n";
+
+        FoodImportResult result = importExportService.importCsv(user, stream(csv));
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().asString().startsWith("3行目");
+    }
+
+    private List<Long> notifiedFoodIds() {
+        return ledgerRepository.findAll().stream().map(NotificationLedger::getFoodId).toList();
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.Recipe;
+
+import java.util.regex.Pattern;
+
+/**
+ * 正規表現で1行ずつ解析していた以前の RecipeTextParser（解析結果を比べるためだけに残している）
+ */
+class LegacyRecipeTextParser {
+
+    private static final Pattern NUMBERED_LINE = Pattern.compile("^\\d+\\..*");
+
+    // まだ改行が届いていない行の途中
+    private final StringBuilder pending = new StringBuilder();
+
+    private String title = "提案レシピ";
+    private final StringBuilder ingredients = new StringBuilder();
+    private final StringBuilder instructions = new StringBuilder();
+    private String cookingTime = "不明";
+    private String difficulty = "普通";
+
+    /**
+     * テキスト全体を一度に解析する
+     */
+    static Recipe parse(String text) {
+        LegacyRecipeTextParser parser = new LegacyRecipeTextParser();
+        parser.feed(text);
+        return parser.finish();
+    }
+
+    /**
+     * 届いたテキストを追加し、改行まで揃った行を解析する
+     */
+    public void feed(CharSequence chunk) {
+        pending.append(chunk);
+        int newline;
+        while ((newline = pending.indexOf("\n")) >= 0) {
+            processLine(pending.substring(0, newline));
+            pending.delete(0, newline + 1);
+        }
+    }
+
+    /**
+     * 残りの行を解析して最終結果を返す
+     */
+    public Recipe finish() {
+        if (pending.length() > 0) {
+            processLine(pending.toString());
+            pending.setLength(0);
+        }
+        return snapshot();
+    }
+
+    /**
+     * ここまでに解析できた内容
+     */
+    public Recipe snapshot() {
+        return new Recipe(title, ingredients.toString(), instructions.toString(), cookingTime, difficulty);
+    }
+
+    private void processLine(String line) {
+        line = line.trim();
+        // マークダウンの太字除去などのクリーニングを行っても良い
+        line = line.replace("**", "");
+
+        if (line.startsWith("料理名:") || line.startsWith("タイトル:")) {
+            title = valueOf(line);
+        } else if (line.startsWith("材料:") || line.startsWith("食材:")) {
+            ingredients.setLength(0);
+            ingredients.append(valueOf(line));
+        } else if (line.startsWith("作り方:") || line.startsWith("手順:")) {
+            instructions.setLength(0);
+            instructions.append(valueOf(line));
+        } else if (line.startsWith("調理時間:")) {
+            cookingTime = valueOf(line);
+        } else if (line.startsWith("難易度:")) {
+            difficulty = valueOf(line);
+        } else if (NUMBERED_LINE.matcher(line).matches() || line.startsWith("- ")) {
+            if (instructions.length() > 0) instructions.append('\n');
+            instructions.append(line);
+        } else if (!line.isEmpty() && !line.contains(":")) {
+            // 行頭にラベルがない場合、前の項目の続きとみなす簡易ロジック
+            if (ingredients.length() > 0 && instructions.length() == 0) {
+                ingredients.append('\n').append(line);
+            }
+        }
+    }
+
+    private static String valueOf(String line) {
+        return line.substring(line.indexOf(":") + 1).trim();
+    }
+}
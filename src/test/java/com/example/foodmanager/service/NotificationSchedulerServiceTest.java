@@ -0,0 +1,110 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.User;
+import com.example.foodmanager.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 定期通知のテスト
+ * 次の通知日時を進めたときに、User の2次キャッシュは進めたユーザーの分だけが消えることを確かめる
+ * また、通知に失敗するユーザーがいても同じ分割の他のユーザーには通知されることを確かめる
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class NotificationSchedulerServiceTest {
+
+    @Autowired
+    private NotificationSchedulerService schedulerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private FoodService foodService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private ExpirationNotificationService notificationService;
+
+    @Test
+    void advancingNextNotifyAtEvictsOnlyNotifiedUsers() {
+        // 他のテストの実行枠と重ならないよう、十分先の日時を使う
+        LocalDateTime slot = LocalDateTime.now().plusYears(10).truncatedTo(ChronoUnit.MINUTES);
+        User due = saveUser(slot.minusMinutes(1));
+        User notDue = saveUser(slot.plusHours(1));
+
+        // 読み込んで2次キャッシュに載せる
+        userRepository.findById(due.getId());
+        userRepository.findById(notDue.getId());
+        assertThat(entityManagerFactory.getCache().contains(User.class, due.getId())).isTrue();
+        assertThat(entityManagerFactory.getCache().contains(User.class, notDue.getId())).isTrue();
+
+        schedulerService.processSlot(slot);
+
+        assertThat(entityManagerFactory.getCache().contains(User.class, due.getId())).isFalse();
+        assertThat(entityManagerFactory.getCache().contains(User.class, notDue.getId())).isTrue();
+        assertThat(userRepository.findById(due.getId())).get()
+            .extracting(User::getNextNotifyAt).isEqualTo(slot.minusMinutes(1).plusDays(1));
+    }
+
+    @Test
+    void failingUserIsSkippedWithoutBlockingOthers() {
+        LocalDateTime slot = LocalDateTime.now().plusYears(20).truncatedTo(ChronoUnit.MINUTES);
+        // 失敗するユーザーの方が通知日時が古く、古い順の先頭に来る
+        User failing = saveUserWithDueFood(slot.minusMinutes(2));
+        User other = saveUserWithDueFood(slot.minusMinutes(1));
+        doThrow(new IllegalStateException("送信できません"))
+            .when(notificationService).notifyUser(argThat(user -> user.getId().equals(failing.getId())), anyList());
+
+        double skippedBefore = meterRegistry.counter("notification.users.skipped").count();
+
+        schedulerService.processSlot(slot);
+
+        assertThat(meterRegistry.counter("notification.users.skipped").count()).isEqualTo(skippedBefore + 1);
+        // 他のユーザーには通知され、次の通知日時が1日進む
+        verify(notificationService).notifyUser(argThat(user -> user.getId().equals(other.getId())), anyList());
+        assertThat(userRepository.findById(other.getId())).get()
+            .extracting(User::getNextNotifyAt).isEqualTo(slot.minusMinutes(1).plusDays(1));
+        // 失敗したユーザーは今回の通知を飛ばして次の通知日時へ進み、次の実行枠で同じ失敗を繰り返さない
+        assertThat(userRepository.findById(failing.getId())).get()
+            .extracting(User::getNextNotifyAt).isEqualTo(slot.minusMinutes(2).plusDays(1));
+    }
+
+    private User saveUserWithDueFood(LocalDateTime nextNotifyAt) {
+        User user = saveUser(nextNotifyAt);
+        foodService.addFood(user, "牛乳", nextNotifyAt.toLocalDate().plusDays(user.getNotificationDaysBefore()));
+        return user;
+    }
+
+    private User saveUser(LocalDateTime nextNotifyAt) {
+        User user = new User();
+        user.setUsername("scheduler");
+        user.setEmail("scheduler-" + UUID.randomUUID() + "@example.com");
+        user.setPassword("password");
+        user.setNotificationTime(LocalTime.from(nextNotifyAt));
+        user.setNextNotifyAt(nextNotifyAt);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.CachedRecipe;
+import com.example.foodmanager.model.Recipe;
+import com.example.foodmanager.repository.CachedRecipeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * レシピキャッシュのテスト（DBに保存する設定）
+ * AIの呼び出しは差し替え、DBキャッシュの読み書きだけを確かめる
+ */
+@SpringBootTest(properties = {"app.recipe-cache.persistent=true", "app.recipe-cache.ttl=6h"})
+@ActiveProfiles("test")
+class RecipeCacheServiceTest {
+
+    @MockBean
+    private GeminiAIService geminiAIService;
+
+    @Autowired
+    private RecipeCacheService recipeCacheService;
+
+    @Autowired
+    private CachedRecipeRepository cachedRecipeRepository;
+
+    @Test
+    void expiredRowIsReplacedWithNewRecipe() {
+        List<String> ingredients = List.of("キャベツ", "豚肉");
+        String cacheKey = RecipeCacheService.hash(RecipeCacheService.normalize(ingredients));
+
+        CachedRecipe expired = new CachedRecipe();
+        expired.setCacheKey(cacheKey);
+        expired.setIngredientSet(RecipeCacheService.normalize(ingredients));
+        expired.setTitle("古いレシピ");
+        expired.setIngredients("キャベツ");
+        expired.setInstructions("1. 切る");
+        cachedRecipeRepository.save(expired);
+        CachedRecipe saved = cachedRecipeRepository.findById(cacheKey).orElseThrow();
+        saved.setCreatedAt(LocalDateTime.now().minusHours(7));
+        cachedRecipeRepository.save(saved);
+
+        when(geminiAIService.generateRecipeFromIngredients(anyList()))
+            .thenReturn(Mono.just(new Recipe("回鍋肉", "キャベツ、豚肉", "1. 炒める", "15分", "簡単")));
+
+        Recipe recipe = recipeCacheService.getOrGenerate(ingredients).block();
+
+        assertThat(recipe.getTitle()).isEqualTo("回鍋肉");
+        CachedRecipe replaced = cachedRecipeRepository.findById(cacheKey).orElseThrow();
+        assertThat(replaced.getTitle()).isEqualTo("回鍋肉");
+        assertThat(replaced.getCreatedAt()).isAfter(LocalDateTime.now().minusMinutes(1));
+    }
+
+    @Test
+    void longIngredientSetIsSaved() {
+        // 正規化すると VARCHAR(2000) を超える組み合わせ
+        List<String> ingredients = IntStream.range(0, 300).mapToObj(i -> "国産の野菜" + i).toList();
+        String ingredientSet = RecipeCacheService.normalize(ingredients);
+        assertThat(ingredientSet.length()).isGreaterThan(2000);
+
+        when(geminiAIService.generateRecipeFromIngredients(anyList()))
+            .thenReturn(Mono.just(new Recipe("寄せ鍋", "いろいろ", "1. 煮る", "30分", "簡単")));
+
+        recipeCacheService.getOrGenerate(ingredients).block();
+
+        CachedRecipe saved = cachedRecipeRepository.findById(RecipeCacheService.hash(ingredientSet)).orElseThrow();
+        assertThat(saved.getIngredientSet()).isEqualTo(ingredientSet);
+        assertThat(saved.getTitle()).isEqualTo("寄せ鍋");
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.model.Recipe;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * レシピのテキスト解析のテスト
+ * src/test/resources/recipe-parser の *.txt（AIの応答）を解析し、*.expected（期待する結果）と比べる。
+ * 以前の正規表現による解析（LegacyRecipeTextParser）とも比べ、同じ結果になる入力と、以前の解析の誤りを直した入力を確かめる。
+ */
+class RecipeTextParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "typical", "markdown", "trailing-notes", "no-labels",
+        "multiline-ingredients", "unnumbered-steps", "mixed-steps", "fullwidth"
+    })
+    void parsesWholeText(String name) {
+        assertThat(render(RecipeTextParser.parse(input(name)))).isEqualTo(expected(name));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 7, 64})
+    void parsesStreamedChunks(int chunkSize) {
+        for (String name : new String[] {"typical", "markdown", "multiline-ingredients", "mixed-steps", "fullwidth"}) {
+            String text = input(name);
+            RecipeTextParser parser = new RecipeTextParser();
+            for (int i = 0; i < text.length(); i += chunkSize) {
+                parser.feed(text.substring(i, Math.min(i + chunkSize, text.length())));
+            }
+            assertThat(render(parser.finish())).as(name).isEqualTo(expected(name));
+        }
+    }
+
+    // 以前の解析と同じ結果になる入力
+    @ParameterizedTest
+    @ValueSource(strings = {"typical", "markdown", "trailing-notes", "no-labels"})
+    void matchesLegacyParser(String name) {
+        assertThat(render(LegacyRecipeTextParser.parse(input(name)))).isEqualTo(expected(name));
+    }
+
+    // 以下は以前の解析で項目を取り違えたり行を落としたりしていた入力。以前の解析の誤りそのものを確かめる
+    // （正しい結果は parsesWholeText で確かめている）
+
+    // 「-」「・」で始まる行や「名前: 分量」の行を材料として拾えず、材料が空になる
+    @Test
+    void legacyParserDropsBulletedIngredients() {
+        Recipe legacy = LegacyRecipeTextParser.parse(input("multiline-ingredients"));
+        assertThat(legacy.getIngredients()).isEmpty();
+        assertThat(RecipeTextParser.parse(input("multiline-ingredients")).getIngredients())
+            .contains("- じゃがいも 3個", "・玉ねぎ 1個", "塩: 少々");
+    }
+
+    // 番号のない手順を材料の続きとして読み、作り方が空になる
+    @Test
+    void legacyParserReadsUnnumberedStepsAsIngredients() {
+        Recipe legacy = LegacyRecipeTextParser.parse(input("unnumbered-steps"));
+        assertThat(legacy.getIngredients()).contains("鍋に水400mlとスープの素を入れて沸かす");
+        assertThat(legacy.getInstructions()).isEmpty();
+    }
+
+    // 番号付きの手順の間にある番号のない行を落とす
+    @Test
+    void legacyParserDropsUnnumberedLineBetweenSteps() {
+        Recipe legacy = LegacyRecipeTextParser.parse(input("mixed-steps"));
+        assertThat(legacy.getInstructions())
+            .contains("2. バターを溶かしたフライパンで両面を焼く")
+            .doesNotContain("焼き色がついたらふたをして弱火で3分");
+    }
+
+    // 全角のコロン（：）や全角スペースの字下げのある見出しを読めず、すべての項目が既定値になる
+    @Test
+    void legacyParserIgnoresFullwidthLabels() {
+        Recipe legacy = LegacyRecipeTextParser.parse(input("fullwidth"));
+        assertThat(legacy.getTitle()).isEqualTo("提案レシピ");
+        assertThat(legacy.getIngredients()).isEmpty();
+        assertThat(legacy.getInstructions()).isEmpty();
+        assertThat(legacy.getCookingTime()).isEqualTo("不明");
+    }
+
+    private static String render(Recipe recipe) {
+        return "[料理名]\n" + recipe.getTitle() + "\n"
+            + "[材料]\n" + recipe.getIngredients() + "\n"
+            + "[作り方]\n" + recipe.getInstructions() + "\n"
+            + "[調理時間]\n" + recipe.getCookingTime() + "\n"
+            + "[難易度]\n" + recipe.getDifficulty() + "\n";
+    }
+
+    private static String input(String name) {
+        return read(name + ".txt");
+    }
+
+    private static String expected(String name) {
+        return read(name + ".expected");
+    }
+
+    private static String read(String file) {
+        try (InputStream in = RecipeTextParserTest.class.getResourceAsStream("/recipe-parser/" + file)) {
+            assertThat(in).as(file).isNotNull();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
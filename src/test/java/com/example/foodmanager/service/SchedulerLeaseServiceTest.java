@@ -0,0 +1,148 @@
+package com.example.foodmanager.service;
+
+import com.example.foodmanager.FoodManagerApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 定期処理の担当（リース）のテスト
+ * 同じDBを使うアプリを2つ起動し、2台のノードとして担当を取り合わせる
+ */
+class SchedulerLeaseServiceTest {
+
+    private static final String JOB_NAME = "lease-test";
+    private static final AtomicInteger slotCounter = new AtomicInteger();
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        String url = "jdbc:h2:mem:lease-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        nodeA = startNode(url, "node-a");
+        nodeB = startNode(url, "node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(String url, String nodeId) {
+        return new SpringApplicationBuilder(FoodManagerApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("test")
+            .run("--spring.datasource.url=" + url, "--app.scheduler.node-id=" + nodeId);
+    }
+
+    // 前のテストで完了しないまま残った担当が、他の実行枠の担当を止めないようにする
+    @BeforeEach
+    void clearLeases() {
+        nodeA.getBean(JdbcTemplate.class).update("DELETE FROM scheduler_lease");
+    }
+
+    @Test
+    void onlyOneNodeAcquiresLease() {
+        LocalDateTime slot = newSlot();
+
+        assertThat(lease(nodeA).tryAcquire(JOB_NAME, slot, 0)).isTrue();
+        assertThat(lease(nodeB).tryAcquire(JOB_NAME, slot, 0)).isFalse();
+        assertThat(lease(nodeB).tryAcquire(JOB_NAME, slot, 1)).isTrue();
+    }
+
+    @Test
+    void expiredLeaseIsTakenOver() {
+        LocalDateTime slot = newSlot();
+        assertThat(lease(nodeA).tryAcquire(JOB_NAME, slot, 0)).isTrue();
+
+        // node-a が完了しないまま止まり、担当の期限が過ぎた
+        expire(slot, 0);
+
+        assertThat(lease(nodeB).tryAcquire(JOB_NAME, slot, 0)).isTrue();
+        assertThat(lease(nodeA).tryAcquire(JOB_NAME, slot, 0)).isFalse();
+        // 引き継がれた後に元のノードが完了しようとしても失敗する
+        assertThatThrownBy(() -> complete(nodeA, slot, 0)).isInstanceOf(IllegalStateException.class);
+        complete(nodeB, slot, 0);
+    }
+
+    @Test
+    void completedLeaseIsNotTakenOver() {
+        LocalDateTime slot = newSlot();
+        assertThat(lease(nodeA).tryAcquire(JOB_NAME, slot, 0)).isTrue();
+        complete(nodeA, slot, 0);
+
+        expire(slot, 0);
+
+        assertThat(lease(nodeB).tryAcquire(JOB_NAME, slot, 0)).isFalse();
+    }
+
+    @Test
+    void partitionIsNotAcquiredWhileAnotherSlotIsInProgress() {
+        LocalDateTime slot = newSlot();
+        LocalDateTime nextSlot = slot.plusMinutes(1);
+        assertThat(lease(nodeA).tryAcquire(JOB_NAME, slot, 0)).isTrue();
+
+        // node-a が前の枠の分割0を処理している間は、次の枠でも分割0は取らない（他の分割は取れる）
+        assertThat(lease(nodeB).tryAcquire(JOB_NAME, nextSlot, 0)).isFalse();
+        assertThat(lease(nodeB).tryAcquire(JOB_NAME, nextSlot, 1)).isTrue();
+
+        // 前の枠が完了すれば取れる
+        complete(nodeA, slot, 0);
+        assertThat(lease(nodeB).tryAcquire(JOB_NAME, nextSlot, 0)).isTrue();
+    }
+
+    @Test
+    void releasedOrExpiredLeaseDoesNotBlockNextSlot() {
+        LocalDateTime slot = newSlot();
+        assertThat(lease(nodeA).tryAcquire(JOB_NAME, slot, 0)).isTrue();
+        assertThat(lease(nodeA).tryAcquire(JOB_NAME, slot, 1)).isTrue();
+
+        // 失敗して手放した担当と、期限が過ぎた担当は次の枠を止めない
+        lease(nodeA).release(JOB_NAME, slot, 0);
+        expire(slot, 1);
+
+        assertThat(lease(nodeB).tryAcquire(JOB_NAME, slot.plusMinutes(1), 0)).isTrue();
+        assertThat(lease(nodeB).tryAcquire(JOB_NAME, slot.plusMinutes(1), 1)).isTrue();
+    }
+
+    private static SchedulerLeaseService lease(ConfigurableApplicationContext node) {
+        return node.getBean(SchedulerLeaseService.class);
+    }
+
+    private static void complete(ConfigurableApplicationContext node, LocalDateTime slot, int partition) {
+        node.getBean(TransactionTemplate.class).executeWithoutResult(status ->
+            lease(node).complete(JOB_NAME, slot, partition));
+    }
+
+    private static void expire(LocalDateTime slot, int partition) {
+        int updated = nodeA.getBean(JdbcTemplate.class).update(
+            "UPDATE scheduler_lease SET leased_until = ? WHERE job_name = ? AND slot_at = ? AND partition_no = ?",
+            LocalDateTime.now().minusMinutes(1), JOB_NAME, slot, partition);
+        assertThat(updated).isEqualTo(1);
+    }
+
+    // テストごとに別の実行枠を使う
+    private static LocalDateTime newSlot() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).plusDays(slotCounter.incrementAndGet());
+    }
+}